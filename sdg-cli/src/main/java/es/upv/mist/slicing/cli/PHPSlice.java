@@ -1,6 +1,5 @@
 package es.upv.mist.slicing.cli;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.comments.BlockComment;
@@ -13,7 +12,7 @@ import es.upv.mist.slicing.slicing.FileLineSlicingCriterion;
 import es.upv.mist.slicing.slicing.NodeIdSlicingCriterion;
 import es.upv.mist.slicing.slicing.Slice;
 import es.upv.mist.slicing.slicing.SlicingCriterion;
-import es.upv.mist.slicing.utils.StaticTypeSolver;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import org.apache.commons.cli.*;
 
 import java.io.File;
@@ -86,13 +85,14 @@ public class PHPSlice {
 
     public void slice() throws ParseException, IOException {
         // Configure JavaParser
-        StaticTypeSolver.addTypeSolverJRE();
-        StaticJavaParser.getConfiguration().setAttributeComments(false);
+        AnalysisContext context = new AnalysisContext();
+        context.addTypeSolverJRE();
+        context.getParserConfiguration().setAttributeComments(false);
 
         // Build the SDG
         NodeList<CompilationUnit> units = new NodeList<>();
         try {
-            units.add(StaticJavaParser.parse(scFile));
+            units.add(context.parse(scFile));
         } catch (FileNotFoundException e) {
             throw new ParseException(e.getMessage());
         }
@@ -1,11 +1,9 @@
 package es.upv.mist.slicing.cli;
 
-import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.comments.BlockComment;
 import com.github.javaparser.ast.nodeTypes.NodeWithName;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver;
 import es.upv.mist.slicing.graphs.augmented.ASDG;
 import es.upv.mist.slicing.graphs.augmented.PSDG;
 import es.upv.mist.slicing.graphs.exceptionsensitive.ESSDG;
@@ -13,17 +11,18 @@ import es.upv.mist.slicing.graphs.sdg.SDG;
 import es.upv.mist.slicing.slicing.FileLineSlicingCriterion;
 import es.upv.mist.slicing.slicing.Slice;
 import es.upv.mist.slicing.slicing.SlicingCriterion;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import es.upv.mist.slicing.utils.NodeHashSet;
-import es.upv.mist.slicing.utils.StaticTypeSolver;
+import es.upv.mist.slicing.utils.ProjectTypeSolver;
 import org.apache.commons.cli.*;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Stream;
 
 public class Slicer {
     protected static final String HELP_HEADER = "Java SDG Slicer: extract a slice from a Java program. At least" +
@@ -92,6 +91,24 @@ public class Slicer {
                 .hasArg().argName("graph_type")
                 .desc("The type of graph to be built. Available options are SDG, ASDG, PSDG, ESSDG.")
                 .build());
+        OPTIONS.addOption(Option
+                .builder("d").longOpt("demand")
+                .desc("Build only the methods that may affect the slicing criterion, instead of the whole program. " +
+                        "The slice is the same, but all the files of the program are still parsed, see \"-p\".")
+                .build());
+        OPTIONS.addOption(Option
+                .builder("p").longOpt("partial")
+                .desc("Parse only the file of the slicing criterion and those that declare the types and methods it " +
+                        "uses (directly or transitively), instead of every file in the included directories. The " +
+                        "callers and subclasses declared in other files will not be analyzed, so the slice may miss " +
+                        "statements that affect the slicing criterion (it is not sound).")
+                .build());
+        OPTIONS.addOption(Option
+                .builder("j").longOpt("jobs")
+                .hasArg().argName("threads").type(Number.class)
+                .desc("Parse the files and build the graph in parallel, with the given number of threads. By " +
+                        "default, the files are parsed in the common pool and the graph is built sequentially.")
+                .build());
         OPTIONS.addOption(Option
                 .builder("h").longOpt("help")
                 .desc("Shows this text")
@@ -104,6 +121,7 @@ public class Slicer {
     private int scLine;
     private final List<String> scVars = new ArrayList<>();
     private final List<Integer> scVarOccurrences = new ArrayList<>();
+    private int jobs = 0;
     private final CommandLine cliOpts;
 
     public Slicer(String... cliArgs) throws ParseException {
@@ -137,6 +155,12 @@ public class Slicer {
             throw new ParseException("Slicing criterion not specified: either use \"-c\" or \"-f\" and \"-l\".");
         }
 
+        if (cliOpts.hasOption('j')) {
+            jobs = ((Number) cliOpts.getParsedOptionValue("j")).intValue();
+            if (jobs <= 0)
+                throw new ParseException("The number of threads must be strictly greater than zero.");
+        }
+
         if (cliOpts.hasOption('o'))
             outputDir = (File) cliOpts.getParsedOptionValue("o");
 
@@ -209,24 +233,39 @@ public class Slicer {
         return Collections.unmodifiableList(scVarOccurrences);
     }
 
+    /** The number of threads in which the graph is built, or 0 if it is built sequentially. */
+    public int getJobs() {
+        return jobs;
+    }
+
     public void slice() throws ParseException {
+        ForkJoinPool pool = jobs > 0 ? new ForkJoinPool(jobs) : null;
+        try {
+            slice(pool);
+        } finally {
+            if (pool != null)
+                pool.shutdown();
+        }
+    }
+
+    protected void slice(ForkJoinPool pool) throws ParseException {
         // Configure JavaParser
-        StaticTypeSolver.addTypeSolverJRE();
-        for (File directory : dirIncludeSet)
-            StaticTypeSolver.addTypeSolver(new JavaParserTypeSolver(directory));
-        StaticJavaParser.getConfiguration().setAttributeComments(false);
+        // The files are parsed once, as the graphs or the symbol solver need them
+        AnalysisContext context = new AnalysisContext();
+        ProjectTypeSolver project = new ProjectTypeSolver(context, dirIncludeSet);
+        context.addTypeSolverJRE();
+        context.addTypeSolver(project);
+        context.getParserConfiguration().setAttributeComments(false);
 
         // Build the SDG
         Set<CompilationUnit> units = new NodeHashSet<>();
         try {
-            for (File file : dirIncludeSet) {
-                if (file.isDirectory())
-                    for (File f : (Iterable<File>) findAllJavaFiles(file)::iterator)
-                        units.add(StaticJavaParser.parse(f));
-                else
-                    units.add(StaticJavaParser.parse(file));
+            if (cliOpts.hasOption('p')) {
+                units.addAll(project.getRequiredCompilationUnits(scFile));
+            } else {
+                units.addAll(project.getAllCompilationUnits(pool != null ? pool : ForkJoinPool.commonPool()));
+                units.add(project.getCompilationUnit(scFile));
             }
-            units.add(StaticJavaParser.parse(scFile));
         } catch (FileNotFoundException e) {
             throw new ParseException(e.getMessage());
         }
@@ -240,10 +279,14 @@ public class Slicer {
             default:
                 throw new IllegalArgumentException("Unknown type of graph. Available graphs are SDG, ASDG, PSDG, ESSDG");
         }
-        sdg.build(new NodeList<>(units));
+        sdg.setBuildPool(pool);
+        SlicingCriterion sc = new FileLineSlicingCriterion(scFile, scLine);
+        if (cliOpts.hasOption('d'))
+            sdg.buildOnDemand(new NodeList<>(units), sc);
+        else
+            sdg.build(new NodeList<>(units));
 
         // Slice the SDG
-        SlicingCriterion sc = new FileLineSlicingCriterion(scFile, scLine);
         Slice slice = sdg.slice(sc);
 
         // Convert the slice to code and output the result to `outputDir`
@@ -263,24 +306,6 @@ public class Slicer {
         }
     }
 
-    protected Stream<File> findAllJavaFiles(File directory) {
-        Stream.Builder<File> builder = Stream.builder();
-        findAllJavaFiles(directory, builder);
-        return builder.build();
-    }
-
-    protected void findAllJavaFiles(File directory, Stream.Builder<File> builder) {
-        File[] files = directory.listFiles();
-        if (files == null)
-            return;
-        for (File f : files) {
-            if (f.isDirectory())
-                findAllJavaFiles(f, builder);
-            else if (f.getName().endsWith(".java"))
-                builder.add(f);
-        }
-    }
-
     protected String getDisclaimer(CompilationUnit.Storage s) {
         return String.format("\n\tThis file was automatically generated as part of a slice with criterion" +
                         "\n\tfile: %s, line: %d, variable(s): %s\n\tOriginal file: %s\n",
@@ -1,13 +1,30 @@
 package es.upv.mist.slicing.graphs;
 
+import es.upv.mist.slicing.nodes.IdHelper;
 import es.upv.mist.slicing.utils.ASTUtils;
+import org.jgrapht.Graph;
+import org.jgrapht.alg.connectivity.KosarajuStrongConnectivityInspector;
 import org.jgrapht.graph.AbstractGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.jgrapht.traverse.TopologicalOrderIterator;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * A fixed-point analysis algorithm that propagates changes backwards through a given graph.
+ * <br/>
+ * It may work in rounds, visiting every affected vertex in each round, or by components: the graph is
+ * condensed into its strongly connected components, which are solved one by one, in reverse topological
+ * order. In the latter mode, a vertex is only visited after all the vertices it depends on (that are not in
+ * its own component) have reached their final value, so the acyclic parts of the graph are visited once.
+ * Components that don't depend on each other may also be solved in parallel, see {@link #analyze(ForkJoinPool)}.
+ * Each component creates its nodes in a {@link IdHelper#fork() fork} of the current helper, which are joined
+ * in reverse topological order, so the ids of the nodes are the same in both modes.
  * @param <V> The graph's vertices type.
  * @param <E> The graph's edges type.
  * @param <D> The value to be computed for each vertex.
@@ -18,25 +35,71 @@ public abstract class BackwardDataFlowAnalysis<V, E, D> {
     protected final AbstractGraph<V, E> graph;
     /** A mapping of the latest value computed per node. */
     protected final Map<V, D> vertexDataMap = new HashMap<>();
+    /** Whether the graph is solved by strongly connected components or in rounds. */
+    protected final boolean byComponents;
 
     protected boolean built = false;
 
     public BackwardDataFlowAnalysis(AbstractGraph<V, E> graph) {
+        this(graph, false);
+    }
+
+    public BackwardDataFlowAnalysis(AbstractGraph<V, E> graph, boolean byComponents) {
         this.graph = graph;
+        this.byComponents = byComponents;
     }
 
     /** Iterate through the graph until a fixed-point is reached.
      *  This method only performs the analysis on its first call. */
     public void analyze() {
         assert !built;
+        if (byComponents) {
+            analyzeByComponents();
+        } else {
+            for (V vertex : graph.vertexSet())
+                vertexDataMap.put(vertex, initialValue(vertex));
+            analyzeInRounds();
+        }
+        built = true;
+    }
+
+    /** Iterate through the graph until a fixed-point is reached, by components, solving in the given pool
+     *  those components that don't depend on each other. A component is solved once all the components it
+     *  depends on have been solved. The result is the same as that of {@link #analyze()} by components, as
+     *  long as {@link #compute(Object, Set)} only modifies the state of its own vertex, or guards any other
+     *  state that it shares. This method only performs the analysis on its first call. */
+    public void analyze(ForkJoinPool pool) {
+        assert !built;
+        // The nodes created by the tasks get their ids from the same source as this thread's
+        IdHelper idHelper = IdHelper.getInstance();
+        // All vertices are in the map from now on, so the tasks only replace values and don't modify its structure
+        for (V vertex : graph.vertexSet())
+            vertexDataMap.put(vertex, null);
+        Graph<Graph<V, E>, DefaultEdge> condensation = condense();
+        List<Graph<V, E>> components = reverseTopologicalOrder(condensation);
+        Map<Graph<V, E>, IdHelper> forkMap = new IdentityHashMap<>();
+        Map<Graph<V, E>, AtomicInteger> pendingMap = new IdentityHashMap<>();
+        List<ComponentTask> ready = new LinkedList<>();
+        for (Graph<V, E> component : components) {
+            forkMap.put(component, idHelper.fork());
+            int pending = condensation.outDegreeOf(component);
+            pendingMap.put(component, new AtomicInteger(pending));
+            if (pending == 0)
+                ready.add(new ComponentTask(condensation, pendingMap, forkMap, component));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(ready)));
+        for (Graph<V, E> component : components)
+            forkMap.get(component).join();
+        built = true;
+    }
+
+    /** Visit all vertices in rounds. In each round, the vertices whose successors changed in the previous one are visited. */
+    protected void analyzeInRounds() {
         List<V> workList = new LinkedList<>(graph.vertexSet());
-        graph.vertexSet().forEach(v -> vertexDataMap.put(v, initialValue(v)));
         while (!workList.isEmpty()) {
             List<V> newWorkList = new LinkedList<>();
             for (V vertex : workList) {
-                Set<V> mayAffectVertex = graph.outgoingEdgesOf(vertex).stream()
-                        .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
-                D newValue = compute(vertex, mayAffectVertex);
+                D newValue = compute(vertex, successorsOf(vertex));
                 if (!Objects.equals(vertexDataMap.get(vertex), newValue)) {
                     vertexDataMap.put(vertex, newValue);
                     graph.incomingEdgesOf(vertex).stream().map(graph::getEdgeSource).forEach(newWorkList::add);
@@ -44,7 +107,127 @@ public abstract class BackwardDataFlowAnalysis<V, E, D> {
             }
             workList = newWorkList;
         }
-        built = true;
+    }
+
+    /** Solve each strongly connected component, starting with those that have no successors. */
+    protected void analyzeByComponents() {
+        IdHelper idHelper = IdHelper.getInstance();
+        for (Graph<V, E> component : reverseTopologicalOrder(condense())) {
+            IdHelper fork = idHelper.fork();
+            fork.run(() -> {
+                initializeComponent(component);
+                analyzeComponent(component);
+            });
+            fork.join();
+        }
+    }
+
+    /** The components of the condensation, sorted so that each one appears after all its successors. */
+    protected List<Graph<V, E>> reverseTopologicalOrder(Graph<Graph<V, E>, DefaultEdge> condensation) {
+        List<Graph<V, E>> components = new ArrayList<>(condensation.vertexSet().size());
+        new TopologicalOrderIterator<>(condensation).forEachRemaining(components::add);
+        Collections.reverse(components);
+        return components;
+    }
+
+    /** Condenses the graph into its strongly connected components. There is an edge between two components
+     *  if there is at least one edge between their vertices. */
+    protected Graph<Graph<V, E>, DefaultEdge> condense() {
+        return new KosarajuStrongConnectivityInspector<>(graph).getCondensation();
+    }
+
+    /** Compute the initial value of the vertices of a strongly connected component. It runs in the helper of the
+     *  component, so the nodes it creates are the same whether the components are solved in parallel or not. */
+    protected void initializeComponent(Graph<V, E> component) {
+        for (V vertex : component.vertexSet())
+            vertexDataMap.put(vertex, initialValue(vertex));
+    }
+
+    /** Iterate through a strongly connected component until its values don't change. The vertices are
+     *  kept in a worklist without duplicates, and visited in post-order (successors first). */
+    protected void analyzeComponent(Graph<V, E> component) {
+        List<V> order = postOrder(component);
+        Map<V, Integer> indexMap = new HashMap<>();
+        for (int i = 0; i < order.size(); i++)
+            indexMap.put(order.get(i), i);
+        BitSet workList = new BitSet(order.size());
+        workList.set(0, order.size());
+        for (int i = workList.nextSetBit(0); i >= 0; i = workList.nextSetBit(0)) {
+            workList.clear(i);
+            V vertex = order.get(i);
+            D newValue = compute(vertex, successorsOf(vertex));
+            if (!Objects.equals(vertexDataMap.get(vertex), newValue)) {
+                vertexDataMap.put(vertex, newValue);
+                for (E edge : component.incomingEdgesOf(vertex))
+                    workList.set(indexMap.get(component.getEdgeSource(edge)));
+            }
+        }
+    }
+
+    /** Computes a post-order of the vertices of a component, following its edges forwards. */
+    protected List<V> postOrder(Graph<V, E> component) {
+        List<V> order = new ArrayList<>(component.vertexSet().size());
+        Set<V> visited = new HashSet<>();
+        Deque<Iterator<E>> stack = new LinkedList<>();
+        Deque<V> vertexStack = new LinkedList<>();
+        for (V root : component.vertexSet()) {
+            if (!visited.add(root))
+                continue;
+            vertexStack.push(root);
+            stack.push(component.outgoingEdgesOf(root).iterator());
+            while (!stack.isEmpty()) {
+                if (stack.peek().hasNext()) {
+                    V next = component.getEdgeTarget(stack.peek().next());
+                    if (visited.add(next)) {
+                        vertexStack.push(next);
+                        stack.push(component.outgoingEdgesOf(next).iterator());
+                    }
+                } else {
+                    order.add(vertexStack.pop());
+                    stack.pop();
+                }
+            }
+        }
+        return order;
+    }
+
+    /** Solves a component and then, if it was the last one they depended on, its predecessors in the condensation. */
+    protected class ComponentTask extends RecursiveAction {
+        protected final Graph<Graph<V, E>, DefaultEdge> condensation;
+        /** The number of successors of each component that have not been solved yet. */
+        protected final Map<Graph<V, E>, AtomicInteger> pendingMap;
+        /** The helper in which each component creates its nodes. */
+        protected final Map<Graph<V, E>, IdHelper> forkMap;
+        protected final Graph<V, E> component;
+
+        protected ComponentTask(Graph<Graph<V, E>, DefaultEdge> condensation, Map<Graph<V, E>, AtomicInteger> pendingMap,
+                                Map<Graph<V, E>, IdHelper> forkMap, Graph<V, E> component) {
+            this.condensation = condensation;
+            this.pendingMap = pendingMap;
+            this.forkMap = forkMap;
+            this.component = component;
+        }
+
+        @Override
+        protected void compute() {
+            forkMap.get(component).run(() -> {
+                initializeComponent(component);
+                analyzeComponent(component);
+            });
+            List<ComponentTask> released = new LinkedList<>();
+            for (DefaultEdge edge : condensation.incomingEdgesOf(component)) {
+                Graph<V, E> predecessor = condensation.getEdgeSource(edge);
+                if (pendingMap.get(predecessor).decrementAndGet() == 0)
+                    released.add(new ComponentTask(condensation, pendingMap, forkMap, predecessor));
+            }
+            invokeAll(released);
+        }
+    }
+
+    /** The vertices whose value may affect the value of the given one. */
+    protected Set<V> successorsOf(V vertex) {
+        return graph.outgoingEdgesOf(vertex).stream()
+                .map(graph::getEdgeTarget).collect(Collectors.toCollection(ASTUtils::newIdentityHashSet));
     }
 
     /** Compute a new value for a given vertex, given a set of nodes that might affect its value. */
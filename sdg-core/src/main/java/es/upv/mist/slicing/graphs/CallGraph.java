@@ -14,6 +14,7 @@ import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclarati
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import es.upv.mist.slicing.utils.NodeHashSet;
 import es.upv.mist.slicing.utils.NodeNotFoundException;
 import es.upv.mist.slicing.utils.Utils;
@@ -39,21 +40,48 @@ import java.util.stream.Stream;
  * explicit constructor invokation} ({@code this()}, {@code super()}).
  */
 public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.Edge<?>> implements Buildable<NodeList<CompilationUnit>> {
+    /** The CFGs in which the calls are located, or null if this graph doesn't locate them. */
     private final Map<CallableDeclaration<?>, CFG> cfgMap;
     private final ClassGraph classGraph;
+    /** The vertex that represents each declaration. */
+    private final Map<CallableDeclaration<?>, Vertex> vertexMap = ASTUtils.newIdentityHashMap();
+    /** The edges that represent each call. */
+    private final Map<Resolvable<? extends ResolvedMethodLikeDeclaration>, List<Edge<?>>> callEdgeMap = ASTUtils.newIdentityHashMap();
+    /** For each declaration, the CFG node that contains each of its calls. */
+    private final Map<CallableDeclaration<?>, Map<Resolvable<? extends ResolvedMethodLikeDeclaration>, GraphNode<?>>> graphNodeMap = ASTUtils.newIdentityHashMap();
 
     private boolean built = false;
 
+    /** Creates a call graph whose calls are located in the given CFGs, which must include every declaration. */
     public CallGraph(Map<CallableDeclaration<?>, CFG> cfgMap, ClassGraph classGraph) {
+        this(classGraph, Objects.requireNonNull(cfgMap));
+    }
+
+    /** Creates a call graph that doesn't locate its calls in any CFG, whose edges have no
+     *  {@link Edge#getGraphNode() graph node}. It can be built before any CFG, to navigate the calls. */
+    public CallGraph(ClassGraph classGraph) {
+        this(classGraph, null);
+    }
+
+    protected CallGraph(ClassGraph classGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
         super(null, null, false);
         this.cfgMap = cfgMap;
         this.classGraph = classGraph;
     }
 
+    /** Whether the calls are located in the CFGs of their callers, and the edges have a graph node. */
+    public boolean locatesCalls() {
+        return cfgMap != null;
+    }
+
+    /** The context of the analysis, see {@link ClassGraph#getContext()}. */
+    public AnalysisContext getContext() {
+        return classGraph.getContext();
+    }
+
     /** Resolve a call to all its possible declarations, by using the call AST nodes stored on the edges. */
     public Stream<CallableDeclaration<?>> getCallTargets(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        return edgeSet().stream()
-                .filter(e -> e.getCall() == call)
+        return callEdgeMap.getOrDefault(call, Collections.emptyList()).stream()
                 .map(this::getEdgeTarget)
                 .map(Vertex::getDeclaration)
                 .map(decl -> (CallableDeclaration<?>) decl);
@@ -88,11 +116,14 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
                 .map(Vertex::getDeclaration);
     }
 
-    /** Locate the vertex that represents in this graph the given declaration. */
+    /** Locate the vertex that represents in this graph the given declaration. Declarations are compared
+     *  by identity, and then by {@link ASTUtils#equalsWithRange(Node, Node)} if no vertex matches. */
     protected Vertex findVertexByDeclaration(CallableDeclaration<?> declaration) {
+        Vertex vertex = vertexMap.get(declaration);
+        if (vertex != null)
+            return vertex;
         return vertexSet().stream()
-                .filter(v -> v.declaration == declaration ||
-                        ASTUtils.equalsWithRange(v.declaration, declaration))
+                .filter(v -> ASTUtils.equalsWithRange(v.declaration, declaration))
                 .findFirst().orElseThrow();
     }
 
@@ -115,21 +146,30 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
         arg.accept(new VoidVisitorAdapter<Void>() {
             @Override
             public void visit(MethodDeclaration n, Void arg) {
-                addVertex(new Vertex(n));
+                addVertex(n);
                 super.visit(n, arg);
             }
 
             @Override
             public void visit(ConstructorDeclaration n, Void arg) {
-                addVertex(new Vertex(n));
+                addVertex(n);
                 super.visit(n, arg);
             }
         }, null);
     }
 
+    protected void addVertex(CallableDeclaration<?> declaration) {
+        Vertex vertex = new Vertex(declaration);
+        if (addVertex(vertex))
+            vertexMap.put(declaration, vertex);
+    }
+
     protected boolean addEdge(CallableDeclaration<?> source, CallableDeclaration<?> target, Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
         Edge<?> edge = new Edge<>(call, findGraphNode(call, source));
-        return addEdge(findVertexByDeclaration(source), findVertexByDeclaration(target), edge);
+        if (!addEdge(findVertexByDeclaration(source), findVertexByDeclaration(target), edge))
+            return false;
+        callEdgeMap.computeIfAbsent(call, c -> new LinkedList<>()).add(edge);
+        return true;
     }
 
     /** Find the calls to methods and constructors (edges) in the given list of compilation units. */
@@ -167,21 +207,21 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             // =============== Method calls ===============
             @Override
             public void visit(MethodCallExpr n, Void arg) {
-                n.resolve().toAst().ifPresent(decl -> createPolyEdges(decl, n));
+                ASTUtils.resolve(n).toAst().ifPresent(decl -> createPolyEdges(decl, n));
                 if (ASTUtils.shouldVisitArgumentsForMethodCalls(n))
                     super.visit(n, arg);
             }
 
             @Override
             public void visit(ObjectCreationExpr n, Void arg) {
-                n.resolve().toAst().ifPresent(decl -> createNormalEdge(decl, n));
+                ASTUtils.resolve(n).toAst().ifPresent(decl -> createNormalEdge(decl, n));
                 if (ASTUtils.shouldVisitArgumentsForMethodCalls(n))
                     super.visit(n, arg);
             }
 
             @Override
             public void visit(ExplicitConstructorInvocationStmt n, Void arg) {
-                n.resolve().toAst().ifPresent(decl -> createNormalEdge(decl, n));
+                ASTUtils.resolve(n).toAst().ifPresent(decl -> createNormalEdge(decl, n));
                 if (ASTUtils.shouldVisitArgumentsForMethodCalls(n))
                     super.visit(n, arg);
             }
@@ -232,12 +272,44 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
         }, null);
     }
 
-    /** Locates the node in the collection of CFGs that contains the given call. */
+    /** Creates a call graph that only contains the given declarations and the calls between them, as found
+     *  in this graph. The calls are located in the given CFGs, which must include every given declaration. */
+    public CallGraph subgraph(Set<CallableDeclaration<?>> declarations, Map<CallableDeclaration<?>, CFG> cfgMap) {
+        CallGraph subgraph = new CallGraph(cfgMap, classGraph);
+        for (Vertex vertex : vertexSet())
+            if (declarations.contains(vertex.getDeclaration()))
+                subgraph.addVertex(vertex.getDeclaration());
+        for (Edge<?> edge : edgeSet()) {
+            CallableDeclaration<?> source = getEdgeSource(edge).getDeclaration();
+            CallableDeclaration<?> target = getEdgeTarget(edge).getDeclaration();
+            if (declarations.contains(source) && declarations.contains(target))
+                subgraph.addEdge(source, target, edge.getCall());
+        }
+        subgraph.built = true;
+        return subgraph;
+    }
+
+    /** Locates the node in the collection of CFGs that contains the given call.
+     *  If this graph {@link #locatesCalls() doesn't locate calls}, null is returned. */
     protected GraphNode<?> findGraphNode(Resolvable<? extends ResolvedMethodLikeDeclaration> n, CallableDeclaration<?> declaration) {
+        if (!locatesCalls())
+            return null;
+        if (!cfgMap.containsKey(declaration))
+            throw new NodeNotFoundException("call " + n + " could not be located, there is no CFG for its declaration!");
+        GraphNode<?> node = graphNodeMap.computeIfAbsent(declaration, this::indexCalls).get(n);
+        if (node == null)
+            throw new NodeNotFoundException("call " + n + " could not be located!");
+        return node;
+    }
+
+    /** Maps each call contained in the CFG of the given declaration to the first node that contains it.
+     *  Calls are compared with {@link Object#equals(Object)}, as in {@link GraphNode#containsCall(Resolvable)}. */
+    protected Map<Resolvable<? extends ResolvedMethodLikeDeclaration>, GraphNode<?>> indexCalls(CallableDeclaration<?> declaration) {
+        Map<Resolvable<? extends ResolvedMethodLikeDeclaration>, GraphNode<?>> map = new HashMap<>();
         for (GraphNode<?> node : cfgMap.get(declaration).vertexSet())
-            if (node.containsCall(n))
-                return node;
-        throw new NodeNotFoundException("call " + n + " could not be located!");
+            for (var call : node.getMethodCalls())
+                map.putIfAbsent(call, node);
+        return map;
     }
 
     /** Creates a graph-appropriate DOT exporter. */
@@ -295,16 +367,19 @@ public class CallGraph extends DirectedPseudograph<CallGraph.Vertex, CallGraph.E
             return call;
         }
 
-        /** The graph node that contains the call represented by this edge. */
+        /** The graph node that contains the call represented by this edge.
+         *  @throws IllegalStateException If the call graph {@link CallGraph#locatesCalls() doesn't locate calls}. */
         public GraphNode<?> getGraphNode() {
+            if (graphNode == null)
+                throw new IllegalStateException("The call " + call + " was not located in any CFG");
             return graphNode;
         }
 
         @Override
         public String toString() {
-            return String.format("%s -%d-> %s",
+            return String.format("%s -%s-> %s",
                     ((CallableDeclaration<?>) getSource()).getDeclarationAsString(false, false, false),
-                    graphNode.getId(),
+                    graphNode != null ? graphNode.getId() : "?",
                     ((CallableDeclaration<?>) getTarget()).getDeclarationAsString(false, false, false));
         }
     }
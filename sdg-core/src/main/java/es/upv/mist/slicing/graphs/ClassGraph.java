@@ -4,17 +4,19 @@ import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.*;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
 import com.github.javaparser.resolution.declarations.ResolvedClassDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.Logger;
 import es.upv.mist.slicing.utils.Utils;
 import org.jgrapht.graph.DirectedPseudograph;
 import org.jgrapht.nio.dot.DOTExporter;
 
 import java.util.*;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGraph.ClassArc> implements Buildable<NodeList<CompilationUnit>> {
 
@@ -22,16 +24,43 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
      * as ClassOrInterfaceType objects while class declarations define classes as ClassOrInterfaceDeclaration
      * objects and there is no relationship to match them */
     private final Map<String, ClassGraph.Vertex> vertexDeclarationMap = new HashMap<>();
+    /** The vertex of each class, method and constructor declaration, compared by identity. */
+    private final Map<BodyDeclaration<?>, Vertex> declarationVertexMap = ASTUtils.newIdentityHashMap();
+    /** The class vertices, grouped by their qualified name. Classes that can't be resolved are not included. */
+    private final Map<String, List<Vertex>> qualifiedNameMap = new HashMap<>();
+    /** The class vertex that contains each member vertex. */
+    private final Map<Vertex, Vertex> memberClassMap = ASTUtils.newIdentityHashMap();
+    /** The parent class of each class vertex, if it has one. */
+    private final Map<Vertex, Vertex> parentMap = ASTUtils.newIdentityHashMap();
+    /** The methods declared in each class vertex, indexed by their signature. */
+    private final Map<Vertex, Map<CallableDeclaration.Signature, MethodDeclaration>> methodTableMap = ASTUtils.newIdentityHashMap();
+    /** The class vertices, numbered in the order in which they were found in the graph. */
+    private final List<Vertex> classVertices = new ArrayList<>();
+    /** The indices in {@link #classVertices} of each class and all its descendants. */
+    private final Map<Vertex, BitSet> subclassIndexMap = ASTUtils.newIdentityHashMap();
+    /** The result of {@link #subclassesOf(Vertex)} for each class vertex. */
+    private final Map<Vertex, Set<ClassOrInterfaceDeclaration>> subclassMap = ASTUtils.newIdentityHashMap();
+
+    /** The context whose type solver is used to compare the resolved types. */
+    private final AnalysisContext context;
 
     private boolean built = false;
 
-    public ClassGraph() {
+    public ClassGraph(AnalysisContext context) {
         super(null, null, false);
+        this.context = context;
+    }
+
+    public AnalysisContext getContext() {
+        return context;
     }
 
     /** Locates the vertex that represents a given class or interface declaration.
      *  The vertex must exist, or an exception will be thrown. */
     protected Vertex findClassVertex(ClassOrInterfaceDeclaration declaration) {
+        Vertex vertex = declarationVertexMap.get(declaration);
+        if (vertex != null)
+            return vertex;
         return vertexSet().stream()
                 .filter(v -> v.declaration.isClassOrInterfaceDeclaration())
                 .filter(v -> ASTUtils.equalsWithRangeInCU(v.declaration, declaration))
@@ -41,23 +70,26 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
     /** Locates the vertex that represents a given class or interface declaration.
      *  The vertex must exist, or an exception will be thrown. */
     protected Vertex findClassVertex(ResolvedClassDeclaration declaration) {
-        return vertexSet().stream()
-                .filter(v -> v.declaration.isClassOrInterfaceDeclaration())
+        return findClassVerticesByName(declaration.getQualifiedName()).stream()
                 .filter(v -> v.declaration.asClassOrInterfaceDeclaration().resolve().asClass().equals(declaration))
                 .findFirst().orElseThrow();
     }
 
     protected Vertex findClassVertex(ResolvedReferenceType type) {
-        System.out.println(type.getQualifiedName());
-        Iterator i = vertexSet().stream()
-                .filter(v -> v.declaration.isClassOrInterfaceDeclaration()).iterator();
-        return vertexSet().stream()
-                .filter(v -> v.declaration.isClassOrInterfaceDeclaration())
-                .filter(v -> ASTUtils.resolvedTypeDeclarationToResolvedType(v.declaration.asClassOrInterfaceDeclaration().resolve()).equals(type))
+        return findClassVerticesByName(type.getQualifiedName()).stream()
+                .filter(v -> ASTUtils.resolvedTypeDeclarationToResolvedType(v.declaration.asClassOrInterfaceDeclaration().resolve(), context.getTypeSolver()).equals(type))
                 .findFirst().orElseThrow();
     }
 
+    /** Locates the class vertices whose declaration resolves to the given qualified name. */
+    protected List<Vertex> findClassVerticesByName(String qualifiedName) {
+        return qualifiedNameMap.getOrDefault(qualifiedName, Collections.emptyList());
+    }
+
     protected Vertex findMethodVertex(CallableDeclaration<?> declaration) {
+        Vertex vertex = declarationVertexMap.get(declaration);
+        if (vertex != null)
+            return vertex;
         return vertexSet().stream()
                 .filter(v -> v.declaration.isCallableDeclaration())
                 .filter(v -> ASTUtils.equalsWithRangeInCU(v.declaration, declaration))
@@ -65,13 +97,11 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
     }
 
     public Set<MethodDeclaration> overriddenSetOf(MethodDeclaration method) {
-        return subclassesStreamOf(classVertexOf(findMethodVertex(method)))
-                .flatMap(vertex -> outgoingEdgesOf(vertex).stream()
-                        .filter(ClassArc.Member.class::isInstance)
-                        .map(ClassGraph.this::getEdgeTarget)
-                        .filter(v -> v.declaration.isMethodDeclaration())
-                        .filter(v -> v.declaration.asMethodDeclaration().getSignature().equals(method.getSignature()))
-                        .map(v -> v.declaration.asMethodDeclaration()))
+        return subclassIndexMap.get(classVertexOf(findMethodVertex(method))).stream()
+                .mapToObj(classVertices::get)
+                .map(methodTableMap::get)
+                .map(table -> table.get(method.getSignature()))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toSet());
     }
 
@@ -79,10 +109,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
         assert member.declaration.isFieldDeclaration() ||
                 member.declaration.isCallableDeclaration() ||
                 member.declaration.isInitializerDeclaration();
-        return incomingEdgesOf(member).stream()
-                .filter(ClassArc.Member.class::isInstance)
-                .map(this::getEdgeSource)
-                .findFirst().orElseThrow();
+        return Objects.requireNonNull(memberClassMap.get(member));
     }
 
     /** Returns all child classes of the given class, including itself. */
@@ -101,48 +128,26 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
 
     /** @see #subclassesOf(ClassOrInterfaceDeclaration) */
     protected Set<ClassOrInterfaceDeclaration> subclassesOf(Vertex v) {
-        return subclassesStreamOf(v)
-                .map(Vertex::getDeclaration)
-                .map(ClassOrInterfaceDeclaration.class::cast)
-                .collect(Collectors.toSet());
-    }
-
-    protected Stream<Vertex> subclassesStreamOf(Vertex classVertex) {
-        return Stream.concat(Stream.of(classVertex), outgoingEdgesOf(classVertex).stream()
-                .filter(ClassArc.Extends.class::isInstance)
-                .map(this::getEdgeTarget)
-                .flatMap(this::subclassesStreamOf));
+        return Collections.unmodifiableSet(subclassMap.get(v));
     }
 
     // TODO: this method ignores default method implementations in interfaces, as can be overridden.
     /** Looks up a method in the graph, going up the class inheritance tree to locate a
      *  matching method. If no match can be found, throws an {@link IllegalArgumentException}. */
     public MethodDeclaration findMethodByTypeAndSignature(ClassOrInterfaceDeclaration type, CallableDeclaration.Signature signature) {
-        Optional<MethodDeclaration> result = outgoingEdgesOf(findClassVertex(type)).stream()
-                .filter(ClassArc.Member.class::isInstance)
-                .map(this::getEdgeTarget)
-                .map(Vertex::getDeclaration)
-                .filter(BodyDeclaration::isMethodDeclaration)
-                .map(BodyDeclaration::asMethodDeclaration)
-                .filter(decl -> signature.equals(decl.getSignature()))
-                .findFirst();
-        if (result.isPresent())
-            return result.get();
-        Optional<ClassOrInterfaceDeclaration> parentType = parentOf(type);
-        if (parentType.isEmpty())
-            throw new IllegalArgumentException("Cannot find the given signature: " + signature);
-        return findMethodByTypeAndSignature(parentType.get(), signature);
+        for (Vertex v = findClassVertex(type); v != null; v = parentMap.get(v)) {
+            MethodDeclaration method = methodTableMap.get(v).get(signature);
+            if (method != null)
+                return method;
+        }
+        throw new IllegalArgumentException("Cannot find the given signature: " + signature);
     }
 
     /** Find the parent class or interface of a given class. */
     public Optional<ClassOrInterfaceDeclaration> parentOf(ClassOrInterfaceDeclaration declaration) {
-        return incomingEdgesOf(findClassVertex(declaration)).stream()
-                .filter(ClassArc.Extends.class::isInstance)
-                .map(this::getEdgeSource)
+        return Optional.ofNullable(parentMap.get(findClassVertex(declaration)))
                 .map(Vertex::getDeclaration)
-                .filter(BodyDeclaration::isClassOrInterfaceDeclaration)
-                .map(BodyDeclaration::asClassOrInterfaceDeclaration)
-                .findFirst();
+                .map(BodyDeclaration::asClassOrInterfaceDeclaration);
     }
 
     @Override
@@ -151,6 +156,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
             return;
         buildVertices(arg);
         buildEdges(arg);
+        buildHierarchyTables();
         built = true;
     }
 
@@ -199,6 +205,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
         ClassGraph.Vertex v = new ClassGraph.Vertex(n);
         // Required string to match ClassOrInterfaceType and ClassOrInterfaceDeclaration. QualifiedName Not Valid
         vertexDeclarationMap.put(n.getNameAsString(), v);
+        declarationVertexMap.put(n, v);
         addVertex(v);
     }
 
@@ -215,6 +222,7 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
         assert n instanceof ConstructorDeclaration || n instanceof MethodDeclaration;
         ClassGraph.Vertex v = new ClassGraph.Vertex(n);
         vertexDeclarationMap.put(c.getFullyQualifiedName().get()+ "." + n.getSignature().toString(), v);
+        declarationVertexMap.put(n, v);
         addVertex(v);
     }
 
@@ -274,6 +282,104 @@ public class ClassGraph extends DirectedPseudograph<ClassGraph.Vertex, ClassGrap
         });
     }
 
+    /** Computes, for each class, its qualified name, its members, its parent, its methods by signature and its
+     *  descendants, so that queries on the class hierarchy don't need to traverse the graph. */
+    protected void buildHierarchyTables() {
+        for (Vertex v : vertexSet()) {
+            if (!v.declaration.isClassOrInterfaceDeclaration())
+                continue;
+            addQualifiedName(v);
+            Map<CallableDeclaration.Signature, MethodDeclaration> methodTable = new HashMap<>();
+            for (ClassArc arc : outgoingEdgesOf(v)) {
+                if (!(arc instanceof ClassArc.Member))
+                    continue;
+                Vertex member = getEdgeTarget(arc);
+                memberClassMap.putIfAbsent(member, v);
+                if (member.declaration.isMethodDeclaration())
+                    methodTable.putIfAbsent(member.declaration.asMethodDeclaration().getSignature(),
+                            member.declaration.asMethodDeclaration());
+            }
+            methodTableMap.put(v, methodTable);
+            incomingEdgesOf(v).stream()
+                    .filter(ClassArc.Extends.class::isInstance)
+                    .map(this::getEdgeSource)
+                    .filter(parent -> parent.declaration.isClassOrInterfaceDeclaration())
+                    .findFirst()
+                    .ifPresent(parent -> parentMap.put(v, parent));
+        }
+        buildSubclassIndices();
+        for (Vertex v : classVertices) {
+            subclassMap.put(v, subclassIndexMap.get(v).stream()
+                    .mapToObj(classVertices::get)
+                    .map(Vertex::getDeclaration)
+                    .map(ClassOrInterfaceDeclaration.class::cast)
+                    .collect(Collectors.toSet()));
+        }
+    }
+
+    /** Indexes the class vertex by its qualified name, unless its declaration can't be resolved. */
+    protected void addQualifiedName(Vertex classVertex) {
+        ClassOrInterfaceDeclaration declaration = classVertex.declaration.asClassOrInterfaceDeclaration();
+        String qualifiedName;
+        synchronized (context.getLock()) {
+            try {
+                qualifiedName = declaration.resolve().getQualifiedName();
+            } catch (UnsolvedSymbolException | UnsupportedOperationException e) {
+                Logger.log("Skipping a class, cannot be resolved: " + declaration.getNameAsString());
+                return;
+            }
+        }
+        qualifiedNameMap.computeIfAbsent(qualifiedName, name -> new LinkedList<>()).add(classVertex);
+    }
+
+    /** Numbers the class vertices and computes the indices of each class and the classes that extend it, directly
+     *  or indirectly. A depth-first traversal of the extends arcs completes each class after all its subclasses
+     *  (a reverse topological order of the hierarchy), so its set is the union of theirs, computed once. */
+    protected void buildSubclassIndices() {
+        Map<Vertex, Integer> indexMap = ASTUtils.newIdentityHashMap();
+        for (Vertex v : vertexSet()) {
+            if (v.declaration.isClassOrInterfaceDeclaration()) {
+                indexMap.put(v, classVertices.size());
+                classVertices.add(v);
+            }
+        }
+        Deque<Vertex> path = new LinkedList<>();
+        Deque<Iterator<ClassArc>> pendingArcs = new LinkedList<>();
+        for (Vertex root : classVertices) {
+            if (subclassIndexMap.containsKey(root))
+                continue;
+            visitSubclasses(root, indexMap, path, pendingArcs);
+            while (!path.isEmpty()) {
+                if (pendingArcs.peek().hasNext()) {
+                    ClassArc arc = pendingArcs.peek().next();
+                    if (!(arc instanceof ClassArc.Extends))
+                        continue;
+                    Vertex subclass = getEdgeTarget(arc);
+                    // Classes already visited are complete, unless the hierarchy contains a cycle
+                    if (subclassIndexMap.containsKey(subclass))
+                        subclassIndexMap.get(path.peek()).or(subclassIndexMap.get(subclass));
+                    else
+                        visitSubclasses(subclass, indexMap, path, pendingArcs);
+                } else {
+                    Vertex completed = path.pop();
+                    pendingArcs.pop();
+                    if (!path.isEmpty())
+                        subclassIndexMap.get(path.peek()).or(subclassIndexMap.get(completed));
+                }
+            }
+        }
+    }
+
+    /** Starts the visit of a class vertex in {@link #buildSubclassIndices()}. */
+    protected void visitSubclasses(Vertex classVertex, Map<Vertex, Integer> indexMap,
+                                   Deque<Vertex> path, Deque<Iterator<ClassArc>> pendingArcs) {
+        BitSet indices = new BitSet(classVertices.size());
+        indices.set(indexMap.get(classVertex));
+        subclassIndexMap.put(classVertex, indices);
+        path.push(classVertex);
+        pendingArcs.push(outgoingEdgesOf(classVertex).iterator());
+    }
+
     /** Creates a graph-appropriate DOT exporter. */
     public DOTExporter<CallableDeclaration<?>, CallGraph.Edge<?>> getDOTExporter() {
         DOTExporter<CallableDeclaration<?>, CallGraph.Edge<?>> dot = new DOTExporter<>();
@@ -1,23 +1,73 @@
 package es.upv.mist.slicing.graphs;
 
+import com.github.javaparser.Range;
 import com.github.javaparser.ast.Node;
 import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.IdHelper;
 import es.upv.mist.slicing.nodes.SyntheticNode;
 import es.upv.mist.slicing.utils.ASTUtils;
 import es.upv.mist.slicing.utils.Utils;
 import org.jgrapht.graph.DirectedPseudograph;
 import org.jgrapht.nio.dot.DOTExporter;
 
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /** A generic base graph with some utility methods to more easily create and locate nodes. */
 public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
+    /** The nodes of this graph, indexed by their id. It is computed on demand, as the ids of the nodes
+     *  created by a parallel build are only known once the build is complete (see {@link IdHelper#join()}). */
+    protected volatile Map<Long, GraphNode<?>> idMap;
+    /** The nodes of this graph, indexed by the range of their AST node. */
+    protected final Map<Optional<Range>, List<GraphNode<?>>> rangeMap = new HashMap<>();
+    /** The source of the ids of the nodes created while this graph is built, see {@link #runInSession(Runnable)}. */
+    protected final IdHelper idHelper;
+
     protected Graph() {
+        this(new IdHelper());
+    }
+
+    /** Create a graph whose nodes get their ids from the given helper, which may be shared with other graphs. */
+    protected Graph(IdHelper idHelper) {
         super(null, null, false);
+        this.idHelper = idHelper;
+    }
+
+    /** The helper that generates the ids of the nodes of this graph when it is built on its own. */
+    public IdHelper getIdHelper() {
+        return idHelper;
+    }
+
+    /** Run a step of the build of this graph. The nodes it creates get their ids from the session that is running
+     *  in this thread (e.g. that of the SDG that contains this graph), or from the helper of this graph if there is none. */
+    protected void runInSession(Runnable action) {
+        if (IdHelper.inSession())
+            action.run();
+        else
+            idHelper.run(action);
+    }
+
+    @Override
+    public boolean addVertex(GraphNode<?> node) {
+        if (!super.addVertex(node))
+            return false;
+        idMap = null;
+        rangeMap.computeIfAbsent(node.getAstNode().getRange(), r -> new LinkedList<>()).add(node);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(GraphNode<?> node) {
+        if (!super.removeVertex(node))
+            return false;
+        idMap = null;
+        List<GraphNode<?>> list = rangeMap.get(node.getAstNode().getRange());
+        list.remove(node);
+        if (list.isEmpty())
+            rangeMap.remove(node.getAstNode().getRange());
+        return true;
     }
 
     /** Creates and adds to the graph a normal node with the given label and AST. */
@@ -33,22 +83,38 @@ public abstract class Graph extends DirectedPseudograph<GraphNode<?>, Arc> {
      *                                representing the given AST node. */
     @SuppressWarnings("unchecked")
     public <T extends Node> Optional<GraphNode<T>> findNodeByASTNode(T astNode) {
-        Set<GraphNode<?>> set = findAllNodes(n -> ASTUtils.equalsWithRangeInCU(n.getAstNode(), astNode));
-        if (set.isEmpty())
+        List<GraphNode<?>> nodes = rangeMap.getOrDefault(astNode.getRange(), Collections.emptyList()).stream()
+                .filter(n -> n.getAstNode() == astNode || ASTUtils.equalsWithRangeInCU(n.getAstNode(), astNode))
+                .collect(Collectors.toList());
+        if (nodes.isEmpty())
             return Optional.empty();
-        if (set.size() == 1)
-            return Optional.of((GraphNode<T>) set.iterator().next());
-        set.removeIf(SyntheticNode.class::isInstance);
-        if (set.isEmpty())
+        if (nodes.size() == 1)
+            return Optional.of((GraphNode<T>) nodes.iterator().next());
+        nodes.removeIf(SyntheticNode.class::isInstance);
+        if (nodes.isEmpty())
             return Optional.empty();
-        if (set.size() == 1)
-            return Optional.of((GraphNode<T>) set.iterator().next());
+        if (nodes.size() == 1)
+            return Optional.of((GraphNode<T>) nodes.iterator().next());
         throw new IllegalStateException("There may only be one real node representing each AST node in the graph!");
     }
 
     /** Search for a node in the graph given its id. */
     public Optional<GraphNode<?>> findNodeById(long id) {
-        return findNodeBy(n -> n.getId() == id);
+        Map<Long, GraphNode<?>> map = idMap;
+        if (map == null)
+            map = buildIdMap();
+        return Optional.ofNullable(map.get(id));
+    }
+
+    /** Index the nodes of this graph by their id, unless another thread has just done so. */
+    protected synchronized Map<Long, GraphNode<?>> buildIdMap() {
+        if (idMap == null) {
+            Map<Long, GraphNode<?>> map = new HashMap<>();
+            for (GraphNode<?> node : vertexSet())
+                map.put(node.getId(), node);
+            idMap = map;
+        }
+        return idMap;
     }
 
     /** Search for a node in the graph given a predicate it must pass.
@@ -2,6 +2,7 @@ package es.upv.mist.slicing.graphs;
 
 import com.github.javaparser.ast.body.CallableDeclaration;
 import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.IdHelper;
 
 import java.util.Objects;
 
@@ -13,6 +14,10 @@ public abstract class GraphWithRootNode<T extends CallableDeclaration<?>> extend
         super();
     }
 
+    protected GraphWithRootNode(IdHelper idHelper) {
+        super(idHelper);
+    }
+
     /** Builds and sets the root node with the given label and AST node.
      *  If the root node already exists, an error occurs. */
     public void buildRootNode(String label, T rootNodeAst) {
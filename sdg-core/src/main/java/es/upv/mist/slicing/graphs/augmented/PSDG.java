@@ -2,11 +2,15 @@ package es.upv.mist.slicing.graphs.augmented;
 
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.SyntheticNode;
 import es.upv.mist.slicing.slicing.PseudoPredicateSlicingAlgorithm;
 import es.upv.mist.slicing.slicing.SlicingAlgorithm;
 
+import java.util.HashSet;
+import java.util.Set;
+
 /** A pseudo-predicate SDG, equivalent to an ASDG that is built using the {@link PPDG} instead of {@link APDG}.
  * It uses a different slicing algorithm than its parent graphs. */
 public class PSDG extends ASDG {
@@ -30,6 +34,17 @@ public class PSDG extends ASDG {
         throw new IllegalArgumentException("Node " + node.getId() + "'s associated CFG cannot be found!");
     }
 
+    /** Create an immutable copy of this graph, which keeps track of its pseudo-predicates. */
+    @Override
+    protected FrozenSDG createFrozenSDG() {
+        Set<GraphNode<?>> pseudoPredicates = new HashSet<>();
+        for (CFG cfg : cfgMap.values())
+            for (GraphNode<?> node : cfg.vertexSet())
+                if (!(node instanceof SyntheticNode) && ((ACFG) cfg).isPseudoPredicate(node))
+                    pseudoPredicates.add(node);
+        return new FrozenSDG(this, pseudoPredicates::contains);
+    }
+
     /** Populates a PSDG, using {@link ACFG} and {@link PPDG} as default graphs.
      * @see ASDG.Builder */
     public class Builder extends ASDG.Builder {
@@ -80,14 +80,37 @@ public class CFG extends GraphWithRootNode<CallableDeclaration<?>> {
         return list;
     }
 
+    /** Traverses the graph backwards from the given node, through the executable arcs, and adds to the result
+     *  the last actions that match the variable and filter in each path (in depth-first pre-order).
+     *  The traversal uses an explicit stack, so that it can handle methods of any length.
+     *  @return Whether all paths to the start of the graph contain a non-optional action. */
     protected boolean findLastVarActionsFrom(Set<GraphNode<?>> visited, List<VariableAction> result,
                                              GraphNode<?> currentNode, VariableAction var,
                                              Predicate<VariableAction> filter) {
-        // Base case
         if (visited.contains(currentNode))
             return true;
-        visited.add(currentNode);
+        Deque<Iterator<Arc>> stack = new ArrayDeque<>();
+        boolean allBranches = visitLastVarActions(visited, result, currentNode, var, filter, stack);
+        while (!stack.isEmpty()) {
+            Iterator<Arc> incoming = stack.peek();
+            if (!incoming.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            Arc arc = incoming.next();
+            if (arc.isExecutableControlFlowArc() && !visited.contains(getEdgeSource(arc)))
+                allBranches &= visitLastVarActions(visited, result, getEdgeSource(arc), var, filter, stack);
+        }
+        return allBranches;
+    }
 
+    /** Visits a node in {@link #findLastVarActionsFrom(Set, List, GraphNode, VariableAction, Predicate)}: adds its
+     *  matching actions to the result and, if none of them is certain, pushes its incoming arcs to the stack.
+     *  @return False if the node starts a path without a non-optional action, true otherwise. */
+    protected boolean visitLastVarActions(Set<GraphNode<?>> visited, List<VariableAction> result,
+                                          GraphNode<?> currentNode, VariableAction var,
+                                          Predicate<VariableAction> filter, Deque<Iterator<Arc>> stack) {
+        visited.add(currentNode);
         Stream<VariableAction> stream = currentNode.getVariableActions().stream();
         if (var.getGraphNode().equals(currentNode))
             stream = stream.takeWhile(va -> va != var);
@@ -103,11 +126,9 @@ public class CFG extends GraphWithRootNode<CallableDeclaration<?>> {
         }
 
         // Not found: traverse backwards!
-        boolean allBranches = !incomingEdgesOf(currentNode).isEmpty();
-        for (Arc arc : incomingEdgesOf(currentNode))
-            if (arc.isExecutableControlFlowArc())
-                allBranches &= findLastVarActionsFrom(visited, result, getEdgeSource(arc), var, filter);
-        return allBranches;
+        Set<Arc> incoming = incomingEdgesOf(currentNode);
+        stack.push(incoming.iterator());
+        return !incoming.isEmpty();
     }
 
     /** Create and set the root node of this CFG, given a callable declaration. */
@@ -126,7 +147,7 @@ public class CFG extends GraphWithRootNode<CallableDeclaration<?>> {
 
     @Override
     public void build(CallableDeclaration<?> declaration) {
-        declaration.accept(newCFGBuilder(), null);
+        runInSession(() -> declaration.accept(newCFGBuilder(), null));
         exitNode = vertexSet().stream().filter(MethodExitNode.class::isInstance).findFirst()
                 .orElseThrow(() -> new IllegalStateException("Built graph has no exit node!"));
         built = true;
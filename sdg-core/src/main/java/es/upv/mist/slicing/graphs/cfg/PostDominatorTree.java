@@ -0,0 +1,258 @@
+package es.upv.mist.slicing.graphs.cfg;
+
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.utils.NodeNotFoundException;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * The post-dominator tree of a {@link CFG}, computed with the iterative algorithm by Cooper, Harvey and
+ * Kennedy (<i>A Simple, Fast Dominance Algorithm</i>) on the reversed graph.
+ * <br/>
+ * Only the arcs that pass the given filter are considered. Every node without outgoing arcs is an exit
+ * of the graph, and all exits hang from a virtual root. Nodes that cannot reach any exit are considered
+ * to be post-dominated by every node.
+ * <br/>
+ * The tree is a snapshot of the graph: it must be discarded if the control flow of the CFG changes.
+ */
+public class PostDominatorTree {
+    /** Value of {@link #ipdom} for nodes that cannot reach an exit. */
+    protected static final int UNREACHABLE = -1;
+
+    protected final CFG cfg;
+    /** The nodes of the CFG, in the order in which they appear in its vertex set. */
+    protected final GraphNode<?>[] nodes;
+    protected final Map<GraphNode<?>, Integer> indexMap;
+    /** The immediate post-dominator of each node. The virtual root has index {@code nodes.length}. */
+    protected final int[] ipdom;
+    /** The depth of each node in the tree. */
+    protected final int[] depth;
+    /** Pre-order and post-order numbering of the tree, for constant-time ancestor queries. */
+    protected final int[] preOrder;
+    protected final int[] postOrder;
+
+    /** Computes the post-dominator tree of the given CFG, following all its arcs. */
+    public PostDominatorTree(CFG cfg) {
+        this(cfg, arc -> true);
+    }
+
+    /** Computes the post-dominator tree of the given CFG, following only the arcs that pass the filter. */
+    public PostDominatorTree(CFG cfg, Predicate<Arc> arcFilter) {
+        this.cfg = cfg;
+        int n = cfg.vertexSet().size();
+        nodes = cfg.vertexSet().toArray(GraphNode<?>[]::new);
+        indexMap = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++)
+            indexMap.put(nodes[i], i);
+        int[][] successors = new int[n][];
+        int[][] predecessors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            successors[i] = neighbours(cfg.outgoingEdgesOf(nodes[i]), arcFilter, true);
+            predecessors[i] = neighbours(cfg.incomingEdgesOf(nodes[i]), arcFilter, false);
+        }
+        ipdom = new int[n + 1];
+        depth = new int[n + 1];
+        preOrder = new int[n + 1];
+        postOrder = new int[n + 1];
+        computeImmediatePostDominators(successors, predecessors);
+        computeTreeNumbering();
+    }
+
+    /** Obtains the indices of the nodes at the other end of the given arcs. */
+    protected int[] neighbours(Set<Arc> arcs, Predicate<Arc> arcFilter, boolean targets) {
+        int[] result = new int[arcs.size()];
+        int count = 0;
+        for (Arc arc : arcs)
+            if (arcFilter.test(arc))
+                result[count++] = indexMap.get(targets ? cfg.getEdgeTarget(arc) : cfg.getEdgeSource(arc));
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    /** Runs the Cooper-Harvey-Kennedy fixed point on the reversed graph, whose root is the virtual exit. */
+    protected void computeImmediatePostDominators(int[][] successors, int[][] predecessors) {
+        int n = nodes.length;
+        int root = n;
+        // Post-order of the reversed graph, starting at the virtual root (whose children are the exits).
+        int[] order = new int[n + 1];
+        int[] orderNumber = new int[n + 1];
+        Arrays.fill(orderNumber, UNREACHABLE);
+        int visitedCount = 0;
+        boolean[] visited = new boolean[n + 1];
+        int[] stack = new int[n + 1];
+        int[] position = new int[n + 1];
+        for (int exit = 0; exit < n; exit++) {
+            if (successors[exit].length > 0 || visited[exit])
+                continue;
+            int top = 0;
+            stack[0] = exit;
+            visited[exit] = true;
+            while (top >= 0) {
+                int current = stack[top];
+                if (position[current] < predecessors[current].length) {
+                    int next = predecessors[current][position[current]++];
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        stack[++top] = next;
+                    }
+                } else {
+                    orderNumber[current] = visitedCount;
+                    order[visitedCount++] = current;
+                    top--;
+                }
+            }
+        }
+        orderNumber[root] = visitedCount;
+        order[visitedCount] = root;
+
+        Arrays.fill(ipdom, UNREACHABLE);
+        ipdom[root] = root;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            // Reverse post-order, skipping the root
+            for (int i = visitedCount - 1; i >= 0; i--) {
+                int node = order[i];
+                int newIpdom = successors[node].length == 0 ? root : UNREACHABLE;
+                for (int succ : successors[node]) {
+                    if (ipdom[succ] == UNREACHABLE)
+                        continue;
+                    newIpdom = newIpdom == UNREACHABLE ? succ : intersect(succ, newIpdom, orderNumber);
+                }
+                if (ipdom[node] != newIpdom) {
+                    ipdom[node] = newIpdom;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /** Finds the nearest common ancestor of two nodes in the partially built tree. */
+    protected int intersect(int a, int b, int[] orderNumber) {
+        while (a != b) {
+            while (orderNumber[a] < orderNumber[b])
+                a = ipdom[a];
+            while (orderNumber[b] < orderNumber[a])
+                b = ipdom[b];
+        }
+        return a;
+    }
+
+    /** Numbers the nodes of the tree in pre- and post-order, and computes their depth. */
+    protected void computeTreeNumbering() {
+        int n = nodes.length;
+        int root = n;
+        int[] childCount = new int[n + 2];
+        for (int i = 0; i < n; i++)
+            if (ipdom[i] != UNREACHABLE)
+                childCount[ipdom[i] + 1]++;
+        for (int i = 0; i <= n; i++)
+            childCount[i + 1] += childCount[i];
+        int[] children = new int[childCount[n + 1]];
+        int[] fill = Arrays.copyOf(childCount, n + 1);
+        for (int i = 0; i < n; i++)
+            if (ipdom[i] != UNREACHABLE)
+                children[fill[ipdom[i]]++] = i;
+
+        Arrays.fill(preOrder, UNREACHABLE);
+        Arrays.fill(postOrder, UNREACHABLE);
+        int[] stack = new int[n + 1];
+        int[] position = Arrays.copyOf(childCount, n + 1);
+        int pre = 0, post = 0, top = 0;
+        stack[0] = root;
+        preOrder[root] = pre++;
+        while (top >= 0) {
+            int current = stack[top];
+            if (position[current] < childCount[current + 1]) {
+                int child = children[position[current]++];
+                depth[child] = depth[current] + 1;
+                preOrder[child] = pre++;
+                stack[++top] = child;
+            } else {
+                postOrder[current] = post++;
+                top--;
+            }
+        }
+    }
+
+    /** Whether the second argument post-dominates the first, i.e. whether {@code b} appears in all
+     *  paths from {@code a} to an exit node. Every node post-dominates itself. */
+    public boolean postDominates(GraphNode<?> a, GraphNode<?> b) {
+        return postDominates(indexOf(a), indexOf(b));
+    }
+
+    /** @see #postDominates(GraphNode, GraphNode) */
+    protected boolean postDominates(int a, int b) {
+        if (a == b || ipdom[a] == UNREACHABLE)
+            return true;
+        return ipdom[b] != UNREACHABLE && preOrder[b] <= preOrder[a] && postOrder[a] <= postOrder[b];
+    }
+
+    /** Obtains the immediate post-dominator of the given node, if it has one. Exit nodes and nodes that cannot
+     *  reach an exit have no immediate post-dominator. */
+    public Optional<GraphNode<?>> getImmediatePostDominator(GraphNode<?> node) {
+        int parent = ipdom[indexOf(node)];
+        return Optional.ofNullable(parent == UNREACHABLE || parent == nodes.length ? null : nodes[parent]);
+    }
+
+    /** Obtains the nodes that are control dependent on the given one. A node <i>b</i> is control dependent on
+     *  <i>a</i> if it post-dominates some, but not all, of the successors of <i>a</i>. The successors are
+     *  computed with all the outgoing arcs of <i>a</i>, regardless of the filter used to build this tree.
+     *  The result is sorted like the vertex set of the CFG. */
+    public List<GraphNode<?>> findControlDependentNodes(GraphNode<?> a) {
+        int index = indexOf(a);
+        Set<Arc> arcs = cfg.outgoingEdgesOf(a);
+        if (arcs.size() < 2)
+            return Collections.emptyList();
+        int[] successors = neighbours(arcs, arc -> true, true);
+        BitSet result = new BitSet(nodes.length);
+        int commonPostDominator = UNREACHABLE;
+        boolean deadSuccessor = false;
+        for (int succ : successors) {
+            if (ipdom[succ] == UNREACHABLE)
+                deadSuccessor = true;
+            else
+                commonPostDominator = commonPostDominator == UNREACHABLE ? succ : commonAncestor(commonPostDominator, succ);
+        }
+        if (commonPostDominator == UNREACHABLE)
+            return Collections.emptyList();
+        if (deadSuccessor) {
+            // Dead successors are post-dominated by every node, so every node that
+            // does not post-dominate all the live successors is control dependent.
+            result.set(0, nodes.length);
+            for (int i = commonPostDominator; i != nodes.length; i = ipdom[i])
+                result.clear(i);
+        } else {
+            // Walk the post-dominance frontier of each successor
+            for (int succ : successors)
+                for (int i = succ; i != commonPostDominator && !result.get(i); i = ipdom[i])
+                    result.set(i);
+        }
+        result.clear(index);
+        List<GraphNode<?>> list = new ArrayList<>(result.cardinality());
+        for (int i = result.nextSetBit(0); i >= 0; i = result.nextSetBit(i + 1))
+            list.add(nodes[i]);
+        return list;
+    }
+
+    /** Finds the nearest common ancestor of two nodes of the tree. */
+    protected int commonAncestor(int a, int b) {
+        while (depth[a] > depth[b])
+            a = ipdom[a];
+        while (depth[b] > depth[a])
+            b = ipdom[b];
+        while (a != b) {
+            a = ipdom[a];
+            b = ipdom[b];
+        }
+        return a;
+    }
+
+    protected int indexOf(GraphNode<?> node) {
+        Integer index = indexMap.get(node);
+        if (index == null)
+            throw new NodeNotFoundException(node, cfg);
+        return index;
+    }
+}
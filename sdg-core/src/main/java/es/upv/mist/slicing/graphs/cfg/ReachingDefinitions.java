@@ -0,0 +1,326 @@
+package es.upv.mist.slicing.graphs.cfg;
+
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.SymbolTable;
+import es.upv.mist.slicing.nodes.VariableAction;
+import es.upv.mist.slicing.utils.NodeNotFoundException;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * A classic gen/kill reaching definitions analysis over the executable arcs of a {@link CFG}.
+ * The actions are numbered densely and each node stores the actions that reach it in a {@link BitSet},
+ * so that each query is answered with a lookup, instead of a traversal of the graph.
+ * <br/>
+ * The same object answers the queries of {@link CFG#findLastDefinitionsFrom(VariableAction)},
+ * {@link CFG#findDeclarationFor(VariableAction)} and {@link CFG#isCompletelyDefined(VariableAction.Usage)},
+ * with the same results. As in those methods, the paths that go through the node of the action
+ * that is being queried are not followed, and a node only stops the actions that come before it
+ * if its first action upon the variable is not optional.
+ * <br/>
+ * The analysis is a snapshot of the graph: it must be discarded if the arcs
+ * or the variable actions of the CFG change.
+ */
+public class ReachingDefinitions {
+    protected final CFG cfg;
+    protected final GraphNode<?>[] nodes;
+    protected final Map<GraphNode<?>, Integer> indexMap;
+    /** The sources of the executable arcs that reach each node. */
+    protected final int[][] predecessors;
+    /** Whether each node is the target of any arc, executable or not. */
+    protected final boolean[] hasIncomingArcs;
+    /** The order in which the nodes are visited, a reverse post-order from the root. */
+    protected final int[] order;
+    /** The table of the symbols of the actions in the graph, which are used as the index of each variable.
+     *  It is shared by every action of the graph, or null if the graph has none. */
+    protected final SymbolTable symbolTable;
+    /** The number of variables. The last index is reserved for variables that don't appear in the graph. */
+    protected final int variableCount;
+
+    protected Solution definitions;
+    protected Solution declarations;
+    /** For each node, the variables that are defined in every path that reaches it. */
+    protected BitSet[] completelyDefined;
+
+    public ReachingDefinitions(CFG cfg) {
+        this.cfg = cfg;
+        int n = cfg.vertexSet().size();
+        nodes = cfg.vertexSet().toArray(GraphNode<?>[]::new);
+        indexMap = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++)
+            indexMap.put(nodes[i], i);
+        predecessors = new int[n][];
+        hasIncomingArcs = new boolean[n];
+        int[][] successors = new int[n][];
+        for (int i = 0; i < n; i++) {
+            Set<Arc> incoming = cfg.incomingEdgesOf(nodes[i]);
+            hasIncomingArcs[i] = !incoming.isEmpty();
+            predecessors[i] = incoming.stream().filter(Arc::isExecutableControlFlowArc)
+                    .mapToInt(arc -> indexMap.get(cfg.getEdgeSource(arc))).toArray();
+            successors[i] = cfg.outgoingEdgesOf(nodes[i]).stream().filter(Arc::isExecutableControlFlowArc)
+                    .mapToInt(arc -> indexMap.get(cfg.getEdgeTarget(arc))).toArray();
+        }
+        order = computeOrder(successors);
+        symbolTable = findSymbolTable();
+        // Every action in the graph already has its symbol
+        variableCount = symbolTable == null ? 1 : symbolTable.size() + 1;
+    }
+
+    /** The symbol table of the actions in the graph. They all share it, as they were created by the same build. */
+    protected SymbolTable findSymbolTable() {
+        for (GraphNode<?> node : nodes)
+            for (VariableAction action : node.getVariableActions())
+                return action.getSymbolTable();
+        return null;
+    }
+
+    /** Computes a reverse post-order of the nodes, starting at the root. Nodes that
+     *  are not reachable from it are placed at the end, in the order of the vertex set. */
+    protected int[] computeOrder(int[][] successors) {
+        int n = nodes.length;
+        int[] postOrder = new int[n];
+        int count = 0;
+        boolean[] visited = new boolean[n];
+        if (n > 0) {
+            int[] stack = new int[n];
+            int[] position = new int[n];
+            int root = indexMap.get(cfg.getRootNode());
+            int top = 0;
+            stack[0] = root;
+            visited[root] = true;
+            while (top >= 0) {
+                int current = stack[top];
+                if (position[current] < successors[current].length) {
+                    int next = successors[current][position[current]++];
+                    if (!visited[next]) {
+                        visited[next] = true;
+                        stack[++top] = next;
+                    }
+                } else {
+                    postOrder[count++] = current;
+                    top--;
+                }
+            }
+        }
+        int[] result = new int[n];
+        for (int i = 0; i < count; i++)
+            result[i] = postOrder[count - 1 - i];
+        for (int i = 0; i < n; i++)
+            if (!visited[i])
+                result[count++] = i;
+        return result;
+    }
+
+    /** Obtain the definitions that may have reached the given variable action.
+     *  @see CFG#findLastDefinitionsFrom(VariableAction) */
+    public List<VariableAction> findLastDefinitionsFrom(VariableAction variable) {
+        if (definitions == null)
+            definitions = new Solution(VariableAction::isDefinition);
+        return definitions.findLastActionsFrom(variable);
+    }
+
+    /** Obtain the declaration of a given variable action, if any.
+     *  @see CFG#findDeclarationFor(VariableAction) */
+    public Optional<VariableAction> findDeclarationFor(VariableAction variable) {
+        if (declarations == null)
+            declarations = new Solution(VariableAction::isDeclaration);
+        List<VariableAction> list = declarations.findLastActionsFrom(variable);
+        assert list.size() <= 1;
+        return Optional.ofNullable(list.isEmpty() ? null : list.get(0));
+    }
+
+    /** Check whether or not there is a definition in all paths from the argument to the start of the graph.
+     *  @see CFG#isCompletelyDefined(VariableAction.Usage) */
+    public boolean isCompletelyDefined(VariableAction.Usage usage) {
+        int node = indexOf(usage.getGraphNode());
+        int variable = variableIndex(usage);
+        for (VariableAction action : nodes[node].getVariableActions()) {
+            if (action == usage)
+                break;
+            if (action.isDefinition() && usage.matches(action)) {
+                if (!action.isOptional())
+                    return true;
+                break;
+            }
+        }
+        if (completelyDefined == null)
+            computeCompletelyDefined();
+        return completelyDefined[node].get(variable);
+    }
+
+    /** Computes the greatest fixed point of the variables that are defined in all paths that reach each node. */
+    protected void computeCompletelyDefined() {
+        int n = nodes.length;
+        BitSet[] defines = new BitSet[n];
+        BitSet[] out = new BitSet[n];
+        completelyDefined = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            defines[i] = new BitSet(variableCount);
+            BitSet seen = new BitSet(variableCount);
+            for (VariableAction action : nodes[i].getVariableActions()) {
+                if (!action.isDefinition() || seen.get(variableIndex(action)))
+                    continue;
+                seen.set(variableIndex(action));
+                if (!action.isOptional())
+                    defines[i].set(variableIndex(action));
+            }
+            completelyDefined[i] = new BitSet(variableCount);
+            if (hasIncomingArcs[i])
+                completelyDefined[i].set(0, variableCount);
+            out[i] = (BitSet) completelyDefined[i].clone();
+            out[i].or(defines[i]);
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int node : order) {
+                if (!hasIncomingArcs[node])
+                    continue;
+                BitSet in = new BitSet(variableCount);
+                in.set(0, variableCount);
+                for (int pred : predecessors[node])
+                    in.and(out[pred]);
+                if (!in.equals(completelyDefined[node])) {
+                    completelyDefined[node] = in;
+                    BitSet newOut = (BitSet) in.clone();
+                    newOut.or(defines[node]);
+                    out[node] = newOut;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    protected int indexOf(GraphNode<?> node) {
+        Integer index = indexMap.get(node);
+        if (index == null)
+            throw new NodeNotFoundException(node, cfg);
+        return index;
+    }
+
+    protected int variableIndex(VariableAction action) {
+        if (action.getSymbolTable() != symbolTable)
+            return variableCount - 1;
+        return Math.min(action.getSymbol(), variableCount - 1);
+    }
+
+    /** The reaching actions that match a given filter, for every node of the graph. */
+    protected class Solution {
+        protected final Predicate<VariableAction> filter;
+        /** All the actions that match the filter, sorted by node and position within the node. */
+        protected final List<VariableAction> actions = new ArrayList<>();
+        /** The index of the first action of each node. The actions of node {@code i} are
+         *  located between {@code nodeStart[i]} (inclusive) and {@code nodeStart[i + 1]} (exclusive). */
+        protected final int[] nodeStart;
+        /** For each variable, the actions performed upon it, or null if there are none. */
+        protected final BitSet[] variableActions;
+        /** For each node, the actions that reach its start. */
+        protected final BitSet[] in;
+
+        protected Solution(Predicate<VariableAction> filter) {
+            this.filter = filter;
+            int n = nodes.length;
+            nodeStart = new int[n + 1];
+            variableActions = new BitSet[variableCount];
+            for (int i = 0; i < n; i++) {
+                nodeStart[i] = actions.size();
+                for (VariableAction action : nodes[i].getVariableActions()) {
+                    if (filter.test(action)) {
+                        int variable = variableIndex(action);
+                        if (variableActions[variable] == null)
+                            variableActions[variable] = new BitSet();
+                        variableActions[variable].set(actions.size());
+                        actions.add(action);
+                    }
+                }
+            }
+            nodeStart[n] = actions.size();
+            // Only the last action upon each variable (and any optional ones after it) leaves the node,
+            // and the previous actions are only stopped if the first action upon the variable is not optional
+            BitSet[] gen = new BitSet[n];
+            BitSet[] kill = new BitSet[n];
+            for (int i = 0; i < n; i++) {
+                gen[i] = new BitSet();
+                kill[i] = new BitSet();
+                BitSet found = new BitSet();
+                for (int a = nodeStart[i + 1] - 1; a >= nodeStart[i]; a--) {
+                    VariableAction action = actions.get(a);
+                    int variable = variableIndex(action);
+                    if (found.get(variable))
+                        continue;
+                    gen[i].set(a);
+                    if (!action.isOptional())
+                        found.set(variable);
+                }
+                BitSet seen = new BitSet();
+                for (int a = nodeStart[i]; a < nodeStart[i + 1]; a++) {
+                    VariableAction action = actions.get(a);
+                    int variable = variableIndex(action);
+                    if (seen.get(variable))
+                        continue;
+                    seen.set(variable);
+                    if (!action.isOptional())
+                        kill[i].or(variableActions[variable]);
+                }
+            }
+            // Forward fixed point
+            in = new BitSet[n];
+            BitSet[] out = new BitSet[n];
+            for (int i = 0; i < n; i++) {
+                in[i] = new BitSet();
+                out[i] = (BitSet) gen[i].clone();
+            }
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int node : order) {
+                    BitSet newIn = new BitSet();
+                    for (int pred : predecessors[node])
+                        newIn.or(out[pred]);
+                    if (!newIn.equals(in[node])) {
+                        in[node] = newIn;
+                        BitSet newOut = (BitSet) newIn.clone();
+                        newOut.andNot(kill[node]);
+                        newOut.or(gen[node]);
+                        out[node] = newOut;
+                        changed = true;
+                    }
+                }
+            }
+        }
+
+        /** Obtain the list of actions that can reach the variable, and match the variable and filter. */
+        protected List<VariableAction> findLastActionsFrom(VariableAction var) {
+            int node = indexOf(var.getGraphNode());
+            List<VariableAction> result = new LinkedList<>();
+            // Actions in the same node, before the given one
+            List<VariableAction> local = new LinkedList<>();
+            for (VariableAction action : nodes[node].getVariableActions()) {
+                if (action == var)
+                    break;
+                if (var.matches(action) && filter.test(action))
+                    local.add(action);
+            }
+            for (ListIterator<VariableAction> it = local.listIterator(local.size()); it.hasPrevious(); ) {
+                VariableAction action = it.previous();
+                result.add(action);
+                if (!action.isOptional())
+                    break;
+            }
+            if (!local.isEmpty() && !local.get(0).isOptional())
+                return result;
+            // Actions that reach the node, not counting those in the node itself
+            BitSet reaching = (BitSet) in[node].clone();
+            BitSet matching = variableActions[variableIndex(var)];
+            if (matching == null)
+                return result;
+            reaching.and(matching);
+            reaching.clear(nodeStart[node], nodeStart[node + 1]);
+            for (int i = reaching.nextSetBit(0); i >= 0; i = reaching.nextSetBit(i + 1))
+                result.add(actions.get(i));
+            return result;
+        }
+    }
+}
@@ -10,11 +10,12 @@ import com.github.javaparser.resolution.Resolvable;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import com.github.javaparser.resolution.types.ResolvedReferenceType;
 import com.github.javaparser.resolution.types.ResolvedType;
+import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.arcs.cfg.ControlFlowArc;
 import es.upv.mist.slicing.graphs.augmented.ACFG;
 import es.upv.mist.slicing.graphs.augmented.ACFGBuilder;
-import es.upv.mist.slicing.graphs.augmented.PPControlDependencyBuilder;
 import es.upv.mist.slicing.graphs.cfg.CFGBuilder;
+import es.upv.mist.slicing.graphs.cfg.PostDominatorTree;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.exceptionsensitive.*;
 import es.upv.mist.slicing.nodes.io.MethodExitNode;
@@ -56,7 +57,7 @@ public class ESCFG extends ACFG {
      */
     protected static class ExceptionSource {
         private final GraphNode<?> source;
-        private final Map<ResolvedType, Boolean> exceptions = new HashMap<>();
+        private final Map<ResolvedType, Boolean> exceptions = new LinkedHashMap<>();
 
         protected ExceptionSource(GraphNode<?> source) {
             this.source = Objects.requireNonNull(source);
@@ -90,8 +91,9 @@ public class ESCFG extends ACFG {
     }
 
     public class Builder extends ACFGBuilder {
-        /** Map of the currently relevant exception sources, mapped by type. */
-        protected Map<ResolvedType, List<ExceptionSource>> exceptionSourceMap = new HashMap<>();
+        /** Map of the currently relevant exception sources, mapped by type, in the order in which they were found.
+         *  The hash of some types is not stable, so a hash order would change the ids of the exception exit nodes. */
+        protected Map<ResolvedType, List<ExceptionSource>> exceptionSourceMap = new LinkedHashMap<>();
         /** Stack the 'try's that surround the element we're visiting now. */
         protected Deque<TryStmt> tryStack = new LinkedList<>();
         /** Stack of statements that surround the element we're visiting now. */
@@ -151,7 +153,7 @@ public class ESCFG extends ACFG {
         protected Collection<ExceptionExitNode> processExceptionSources(CallableDeclaration<?> declaration) {
             if (!tryStack.isEmpty())
                 throw new IllegalStateException("Can't process exception sources inside a Try statement.");
-            Map<ResolvedType, ExceptionExitNode> exceptionExitMap = new HashMap<>();
+            Map<ResolvedType, ExceptionExitNode> exceptionExitMap = new LinkedHashMap<>();
             for (var entry : exceptionSourceMap.entrySet()) {
                 // 1. Create "T exit" if it does not exist
                 if (!exceptionExitMap.containsKey(entry.getKey()))
@@ -171,19 +173,21 @@ public class ESCFG extends ACFG {
          * or that post-dominates all return nodes).
          */
         protected void processPendingNormalResultNodes() {
+            // Non-executable arcs don't alter the tree, so it can be shared by all nodes
+            PostDominatorTree postDominatorTree = new PostDominatorTree(ESCFG.this, Arc::isExecutableControlFlowArc);
             for (Map.Entry<NormalReturnNode, Set<ReturnNode>> entry : pendingNormalReturnNodes.entrySet())
-                createNonExecArcFor(entry.getKey(), entry.getValue());
+                createNonExecArcFor(entry.getKey(), entry.getValue(), postDominatorTree);
         }
 
         // TODO: improve accuracy, if there are multiple, select the one that is post-dominated by the others.
         // TODO: improve accuracy and speed by implementing the Roman Chariots problem.
-        /** Creates the non-executable arc from "normal return" node to its target, given a set of its sibling return nodes. */
-        protected void createNonExecArcFor(NormalReturnNode node, Set<ReturnNode> returnNodes) {
-            PPControlDependencyBuilder cdBuilder = new PPControlDependencyBuilder(ESCFG.this, null);
+        /** Creates the non-executable arc from "normal return" node to its target, given a set of its sibling return nodes
+         *  and the post-dominator tree of the executable arcs of this graph. */
+        protected void createNonExecArcFor(NormalReturnNode node, Set<ReturnNode> returnNodes, PostDominatorTree postDominatorTree) {
             vertexSet().stream().sorted()
                     .filter(candidate -> {
                         for (ReturnNode retNode : returnNodes)
-                            if (!cdBuilder.postDominates(retNode, candidate))
+                            if (!postDominatorTree.postDominates(retNode, candidate))
                                 return false;
                         return true;
                     })
@@ -268,7 +272,7 @@ public class ESCFG extends ACFG {
         /** Process a call that may throw exceptions. Generates normal and return nodes, and
          * registers the appropriate exception source. */
         protected void visitCall(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-            ResolvedMethodLikeDeclaration resolved = call.resolve();
+            ResolvedMethodLikeDeclaration resolved = ASTUtils.resolve(call);
             if (resolved.getNumberOfSpecifiedExceptions() == 0)
                 return;
 
@@ -309,7 +313,7 @@ public class ESCFG extends ACFG {
         @Override
         public void visit(CatchClause n, Void arg) {
             // 1. Connect all available exception sources here
-            Set<ExceptionSource> sources = new HashSet<>();
+            Set<ExceptionSource> sources = new LinkedHashSet<>();
             for (List<ExceptionSource> list : exceptionSourceMap.values())
                 sources.addAll(list);
             for (ExceptionSource src : sources)
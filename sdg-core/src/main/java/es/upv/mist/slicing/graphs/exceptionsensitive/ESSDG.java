@@ -6,11 +6,15 @@ import es.upv.mist.slicing.graphs.augmented.PPDG;
 import es.upv.mist.slicing.graphs.augmented.PSDG;
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
+import es.upv.mist.slicing.graphs.sdg.SummaryArcAnalyzer;
 import es.upv.mist.slicing.nodes.exceptionsensitive.ExitNode;
 import es.upv.mist.slicing.nodes.exceptionsensitive.ReturnNode;
 import es.upv.mist.slicing.slicing.ExceptionSensitiveSlicingAlgorithm;
 import es.upv.mist.slicing.slicing.SlicingAlgorithm;
 
+import java.util.concurrent.ForkJoinPool;
+
 /** An exception-sensitive SDG, equivalent to an PSDG, that is built using the {@link ESPDG}
  *  instead of {@link PPDG}. It features a different slicing algorithm
  *  and return arcs, which connect an exit node to a return node. */
@@ -25,6 +29,12 @@ public class ESSDG extends PSDG {
         return new ExceptionSensitiveSlicingAlgorithm(this);
     }
 
+    /** The frozen copy is sliced with the exception-sensitive algorithm, see {@link FrozenESSDG}. */
+    @Override
+    protected FrozenSDG createFrozenSDG() {
+        return new FrozenESSDG(this);
+    }
+
     public void addReturnArc(ExitNode source, ReturnNode target) {
         addEdge(source, target, new ReturnArc());
     }
@@ -38,6 +48,12 @@ public class ESSDG extends PSDG {
             return new ESCFG();
         }
 
+        /** The ESCFG and ESPDG resolve types all along their construction, so they are built sequentially. */
+        @Override
+        protected ForkJoinPool getIntraproceduralPool() {
+            return null;
+        }
+
         @Override
         protected PDG createPDG(CFG cfg) {
             assert cfg instanceof ESCFG;
@@ -48,5 +64,12 @@ public class ESSDG extends PSDG {
         protected void connectCalls(CallGraph callGraph) {
             new ExceptionSensitiveCallConnector(ESSDG.this).connectAllCalls(callGraph);
         }
+
+        /** The exception-sensitive traversal of a procedure is not a reachability problem,
+         *  so each procedure is traversed from each of its formal-out nodes instead. */
+        @Override
+        protected void createSummaryArcs(CallGraph callGraph) {
+            new SummaryArcAnalyzer(ESSDG.this, callGraph).analyze();
+        }
     }
 }
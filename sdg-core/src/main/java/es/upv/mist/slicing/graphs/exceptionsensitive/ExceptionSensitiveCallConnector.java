@@ -1,5 +1,6 @@
 package es.upv.mist.slicing.graphs.exceptionsensitive;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.type.ReferenceType;
 import com.github.javaparser.resolution.Resolvable;
@@ -9,12 +10,10 @@ import com.github.javaparser.resolution.types.ResolvedType;
 import es.upv.mist.slicing.arcs.sdg.ReturnArc;
 import es.upv.mist.slicing.graphs.CallGraph;
 import es.upv.mist.slicing.graphs.sdg.CallConnector;
-import es.upv.mist.slicing.nodes.SyntheticNode;
 import es.upv.mist.slicing.nodes.exceptionsensitive.*;
 import es.upv.mist.slicing.nodes.io.CallNode;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /** An exception-sensitive call connector, which additionally connects exit nodes
  * to their corresponding return nodes.
@@ -41,25 +40,17 @@ public class ExceptionSensitiveCallConnector extends CallConnector {
      * @param call The method call to be connected to its method declaration.
      */
     protected void handleExceptionReturnArcs(Resolvable<? extends ResolvedMethodLikeDeclaration> call, CallGraph callGraph) {
-        Set<SyntheticNode<?>> synthNodes = sdg.vertexSet().stream()
-                .filter(SyntheticNode.class::isInstance)
-                .map(n -> (SyntheticNode<?>) n)
-                .collect(Collectors.toSet());
         callGraph.getCallTargets(call).forEach(decl -> {
-            connectNormalNodes(synthNodes, call, decl);
-            connectExceptionNodes(synthNodes, call, decl);
+            connectNormalNodes(call, decl);
+            connectExceptionNodes(call, decl);
         });
     }
 
     /** Connects normal exit nodes to their corresponding return node. */
-    protected void connectNormalNodes(Set<SyntheticNode<?>> synthNodes, Resolvable<? extends ResolvedMethodLikeDeclaration> call, CallableDeclaration<?> decl) {
-        ReturnNode normalReturn = (ReturnNode) synthNodes.stream()
-                .filter(NormalReturnNode.class::isInstance)
-                .filter(n -> n.getAstNode() == call)
+    protected void connectNormalNodes(Resolvable<? extends ResolvedMethodLikeDeclaration> call, CallableDeclaration<?> decl) {
+        ReturnNode normalReturn = sdg.findSyntheticNodes((Node) call, NormalReturnNode.class).stream()
                 .findAny().orElseThrow();
-        ExitNode normalExit = (ExitNode) synthNodes.stream()
-                .filter(NormalExitNode.class::isInstance)
-                .filter(n -> n.getAstNode() == decl)
+        ExitNode normalExit = sdg.findSyntheticNodes(decl, NormalExitNode.class).stream()
                 .findAny().orElseThrow();
         ((ESSDG) sdg).addReturnArc(normalExit, normalReturn);
     }
@@ -70,19 +61,12 @@ public class ExceptionSensitiveCallConnector extends CallConnector {
      * in the method declaration and exit nodes are generated from the exception sources
      * that appear in the method. This creates a mismatch that is solved in {@link #connectRemainingExceptionNodes(Map, Set)}
      */
-    protected void connectExceptionNodes(Set<SyntheticNode<?>> synthNodes, Resolvable<? extends ResolvedMethodLikeDeclaration> call, CallableDeclaration<?> decl) {
+    protected void connectExceptionNodes(Resolvable<? extends ResolvedMethodLikeDeclaration> call, CallableDeclaration<?> decl) {
         Map<ResolvedType, ExceptionReturnNode> exceptionReturnMap = new HashMap<>();
-        Set<ExceptionExitNode> eeNodes = synthNodes.stream()
-                .filter(ExceptionExitNode.class::isInstance)
-                .map(ExceptionExitNode.class::cast)
-                .filter(n -> n.getAstNode() == decl)
-                .collect(Collectors.toSet());
+        Set<ExceptionExitNode> eeNodes = new HashSet<>(sdg.findSyntheticNodes(decl, ExceptionExitNode.class));
         for (ReferenceType rType : decl.getThrownExceptions()) {
             ResolvedType type = rType.resolve();
-            ExceptionReturnNode exceptionReturn = synthNodes.stream()
-                    .filter(ExceptionReturnNode.class::isInstance)
-                    .map(ExceptionReturnNode.class::cast)
-                    .filter(n -> n.getAstNode() == call)
+            ExceptionReturnNode exceptionReturn = sdg.findSyntheticNodes((Node) call, ExceptionReturnNode.class).stream()
                     .filter(n -> n.getExceptionType().equals(type))
                     .findAny().orElseThrow();
             ExceptionExitNode exceptionExit = eeNodes.stream()
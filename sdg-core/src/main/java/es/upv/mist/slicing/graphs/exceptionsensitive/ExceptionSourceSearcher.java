@@ -9,6 +9,7 @@ import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclarati
 import com.github.javaparser.resolution.types.ResolvedType;
 import es.upv.mist.slicing.graphs.GraphNodeContentVisitor;
 import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.utils.ASTUtils;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -51,7 +52,7 @@ public class ExceptionSourceSearcher extends GraphNodeContentVisitor<Void> {
 
     /** Check whether a call may throw exceptions or not. */
     public void visitCall(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        ResolvedMethodLikeDeclaration declaration = call.resolve();
+        ResolvedMethodLikeDeclaration declaration = ASTUtils.resolve(call);
         if (declaration.getNumberOfSpecifiedExceptions() > 0)
             throw new FoundException(declaration.getSpecifiedExceptions());
     }
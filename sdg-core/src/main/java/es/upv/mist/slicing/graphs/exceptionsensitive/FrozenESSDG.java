@@ -0,0 +1,60 @@
+package es.upv.mist.slicing.graphs.exceptionsensitive;
+
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
+import es.upv.mist.slicing.slicing.FrozenExceptionSensitiveSlicingAlgorithm;
+import es.upv.mist.slicing.slicing.FrozenSlicingAlgorithm;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable copy of a built {@link ESSDG}, which is sliced with the
+ * {@link FrozenExceptionSensitiveSlicingAlgorithm exception-sensitive algorithm}.
+ * Besides the arcs of a {@link FrozenSDG}, it stores the target of each arc and its identity:
+ * the algorithm keeps track of the arcs it traverses, and arcs that are equal are only traversed once.
+ * @see ESSDG#freeze()
+ */
+public class FrozenESSDG extends FrozenSDG {
+    /** The target of each arc. */
+    protected final int[] targets;
+    /** The position of the first arc that is equal to each arc, among the incoming arcs of its target. */
+    protected final int[] identities;
+
+    /** Copies the given ESSDG, which must have been built. */
+    public FrozenESSDG(ESSDG sdg) {
+        super(sdg, node -> false);
+        targets = new int[sources.length];
+        identities = new int[sources.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Map<Arc, Integer> firstPositions = new HashMap<>();
+            int arc = offsets[i];
+            for (Arc a : sdg.incomingEdgesOf(nodes[i])) {
+                Integer first = firstPositions.putIfAbsent(a, arc);
+                targets[arc] = i;
+                identities[arc] = first != null ? first : arc;
+                arc++;
+            }
+        }
+    }
+
+    /** The number of arcs, including those that are equal to others. */
+    public int getArcCount() {
+        return sources.length;
+    }
+
+    /** The index of the target of the arc at the given position. */
+    public int getTarget(int arc) {
+        return targets[arc];
+    }
+
+    /** The position of the first incoming arc of the same node that is equal to the arc at the given position. */
+    public int getIdentity(int arc) {
+        return identities[arc];
+    }
+
+    @Override
+    protected FrozenSlicingAlgorithm createSlicingAlgorithm() {
+        return new FrozenExceptionSensitiveSlicingAlgorithm(this);
+    }
+}
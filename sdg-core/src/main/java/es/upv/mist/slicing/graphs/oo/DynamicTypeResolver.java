@@ -156,6 +156,6 @@ public class DynamicTypeResolver {
                 .getTypeDeclaration().orElseThrow().asClass();
         return classGraph.subclassesOf(type).stream()
                 .map(ClassOrInterfaceDeclaration::resolve)
-                .map(ASTUtils::resolvedTypeDeclarationToResolvedType);
+                .map(decl -> ASTUtils.resolvedTypeDeclarationToResolvedType(decl, classGraph.getContext().getTypeSolver()));
     }
 }
@@ -6,6 +6,8 @@ import es.upv.mist.slicing.arcs.pdg.ControlDependencyArc;
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.nodes.GraphNode;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -21,7 +23,8 @@ import java.util.Set;
  * A node <i>b</i> post-dominates another node <i>a</i> if and only if <i>b</i> appears in every path
  * from <i>a</i> to the "Exit" node.
  * <br/>
- * There exist better, cheaper approaches that have linear complexity w.r.t. the number of edges in the CFG.
+ * There exist better, cheaper approaches that have linear complexity w.r.t. the number of edges in the CFG,
+ * such as {@link PostDominatorControlDependencyBuilder}.
  * <b>Usage:</b> pass an empty {@link PDG} and a filled {@link CFG} and then run {@link #build()}.
  * This builder should only be used once, and then discarded.
  */
@@ -38,15 +41,7 @@ public class ControlDependencyBuilder {
      * once per {@link PDG}, as multiple executions may create duplicate arcs. */
     public void build() {
         assert cfg.isBuilt();
-        GraphNode<?> enterNode = cfg.getRootNode();
-        GraphNode<?> exitNode = cfg.getExitNode();
-
-        Arc enterExitArc = null;
-        if (!cfg.containsEdge(enterNode, exitNode)) {
-            enterExitArc = new ControlFlowArc();
-            cfg.addEdge(enterNode, exitNode, enterExitArc);
-        }
-
+        Arc enterExitArc = connectEnterToExit();
         Set<GraphNode<?>> nodes = pdg.vertexSet();
         for (GraphNode<?> a : nodes) {
             for (GraphNode<?> b : nodes) {
@@ -60,6 +55,19 @@ public class ControlDependencyBuilder {
             cfg.removeEdge(enterExitArc);
     }
 
+    /** Temporarily connects the Enter node to the Exit node, so that every node is control dependent on the
+     *  Enter node. The arc must be removed after computing the control dependencies.
+     *  @return The new arc, or {@code null} if the nodes were already connected. */
+    protected Arc connectEnterToExit() {
+        GraphNode<?> enterNode = cfg.getRootNode();
+        GraphNode<?> exitNode = cfg.getExitNode();
+        if (cfg.containsEdge(enterNode, exitNode))
+            return null;
+        Arc enterExitArc = new ControlFlowArc();
+        cfg.addEdge(enterNode, exitNode, enterExitArc);
+        return enterExitArc;
+    }
+
     /** Whether the first argument has a control-flow effect on the execution of the second argument. */
     public boolean hasControlDependence(GraphNode<?> a, GraphNode<?> b) {
         int yes = 0;
@@ -80,20 +88,23 @@ public class ControlDependencyBuilder {
         return postDominates(a, b, new HashSet<>());
     }
 
-    /** @see #postDominates(GraphNode, GraphNode) */
+    /** @see #postDominates(GraphNode, GraphNode)
+     *  The graph is traversed with an explicit stack, so that it can handle methods of any length. */
     protected boolean postDominates(GraphNode<?> a, GraphNode<?> b, Set<GraphNode<?>> visited) {
-        // Stop w/ success if a == b or a has already been visited
-        if (a.equals(b) || visited.contains(a))
-            return true;
-        Set<Arc> outgoing = cfg.outgoingEdgesOf(a);
-        // Stop w/ failure if there are no edges to traverse from a
-        if (outgoing.isEmpty())
-            return false;
-        // Find all possible paths starting from a, if ALL find b, then true, else false
-        visited.add(a);
-        for (Arc out : outgoing) {
-            if (!postDominates(cfg.getEdgeTarget(out), b, visited))
+        Deque<GraphNode<?>> stack = new ArrayDeque<>();
+        stack.push(a);
+        while (!stack.isEmpty()) {
+            GraphNode<?> node = stack.pop();
+            // Skip the path if it has reached b or a node that has already been visited
+            if (node.equals(b) || !visited.add(node))
+                continue;
+            Set<Arc> outgoing = cfg.outgoingEdgesOf(node);
+            // Stop w/ failure if a path reaches a node without edges to traverse
+            if (outgoing.isEmpty())
                 return false;
+            // All possible paths starting from node must find b
+            for (Arc out : outgoing)
+                stack.push(cfg.getEdgeTarget(out));
         }
         return true;
     }
@@ -6,6 +6,7 @@ import es.upv.mist.slicing.arcs.pdg.ControlDependencyArc;
 import es.upv.mist.slicing.arcs.pdg.DataDependencyArc;
 import es.upv.mist.slicing.graphs.GraphWithRootNode;
 import es.upv.mist.slicing.graphs.cfg.CFG;
+import es.upv.mist.slicing.graphs.cfg.ReachingDefinitions;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.VariableAction;
 import es.upv.mist.slicing.nodes.io.ActualIONode;
@@ -30,7 +31,9 @@ public class PDG extends GraphWithRootNode<CallableDeclaration<?>> {
         this(new CFG());
     }
 
+    /** Create a PDG whose nodes share their ids with those of the given CFG. */
     public PDG(CFG cfg) {
+        super(cfg.getIdHelper());
         this.cfg = cfg;
     }
 
@@ -48,7 +51,7 @@ public class PDG extends GraphWithRootNode<CallableDeclaration<?>> {
 
     @Override
     public void build(CallableDeclaration<?> declaration) {
-        createBuilder().build(declaration);
+        runInSession(() -> createBuilder().build(declaration));
         built = true;
     }
 
@@ -93,17 +96,18 @@ public class PDG extends GraphWithRootNode<CallableDeclaration<?>> {
 
         /** Computes all the control dependencies between nodes of this graph. */
         protected void buildControlDependency() {
-            new ControlDependencyBuilder(cfg, PDG.this).build();
+            new PostDominatorControlDependencyBuilder(cfg, PDG.this).build();
         }
 
         /** Computes all the data dependencies between {@link VariableAction variable actions} of this graph. */
         protected void buildDataDependency() {
+            ReachingDefinitions reachingDefinitions = new ReachingDefinitions(cfg);
             for (GraphNode<?> node : vertexSet())
                 for (VariableAction varAct : node.getVariableActions())
                     if (varAct.isUsage())
-                        cfg.findLastDefinitionsFrom(varAct).forEach(def -> addDataDependencyArc(def, varAct));
+                        reachingDefinitions.findLastDefinitionsFrom(varAct).forEach(def -> addDataDependencyArc(def, varAct));
                     else if (varAct.isDefinition() && !varAct.isSynthetic())
-                        cfg.findDeclarationFor(varAct).ifPresent(dec -> addDataDependencyArc(dec, varAct));
+                        reachingDefinitions.findDeclarationFor(varAct).ifPresent(dec -> addDataDependencyArc(dec, varAct));
         }
 
         /**
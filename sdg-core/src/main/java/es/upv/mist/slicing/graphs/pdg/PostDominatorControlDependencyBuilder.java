@@ -0,0 +1,53 @@
+package es.upv.mist.slicing.graphs.pdg;
+
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.graphs.cfg.CFG;
+import es.upv.mist.slicing.graphs.cfg.PostDominatorTree;
+import es.upv.mist.slicing.nodes.GraphNode;
+
+/**
+ * A finder of control dependencies based on the {@link PostDominatorTree post-dominator tree} of the CFG.
+ * <br/>
+ * It uses the same definition of control dependence as {@link ControlDependencyBuilder}, but instead of
+ * checking every pair of nodes, it builds the post-dominator tree once and, for each successor <i>s</i>
+ * of a branching node <i>a</i>, walks the tree from <i>s</i> up to the nearest common post-dominator of
+ * all the successors of <i>a</i>. Every node found in that walk is control dependent on <i>a</i>.
+ * Its cost is linear with respect to the number of edges in the CFG and the number of dependencies found.
+ * <br/>
+ * <b>Usage:</b> pass an empty {@link PDG} and a filled {@link CFG} and then run {@link #build()}.
+ * This builder should only be used once, and then discarded.
+ */
+public class PostDominatorControlDependencyBuilder extends ControlDependencyBuilder {
+    protected PostDominatorTree postDominatorTree;
+
+    public PostDominatorControlDependencyBuilder(CFG cfg, PDG pdg) {
+        super(cfg, pdg);
+    }
+
+    @Override
+    public void build() {
+        assert cfg.isBuilt();
+        Arc enterExitArc = connectEnterToExit();
+        postDominatorTree = createPostDominatorTree();
+        for (GraphNode<?> a : pdg.vertexSet())
+            for (GraphNode<?> b : postDominatorTree.findControlDependentNodes(a))
+                pdg.addControlDependencyArc(a, b);
+        // The tree is no longer valid once the temporary arc is removed
+        postDominatorTree = null;
+        if (enterExitArc != null)
+            cfg.removeEdge(enterExitArc);
+    }
+
+    @Override
+    public boolean postDominates(GraphNode<?> a, GraphNode<?> b) {
+        if (postDominatorTree == null)
+            postDominatorTree = createPostDominatorTree();
+        return postDominatorTree.postDominates(a, b);
+    }
+
+    /** Computes the post-dominator tree of the current CFG. Child classes that wish to restrict
+     *  the arcs that are considered should override this method. */
+    protected PostDominatorTree createPostDominatorTree() {
+        return new PostDominatorTree(cfg);
+    }
+}
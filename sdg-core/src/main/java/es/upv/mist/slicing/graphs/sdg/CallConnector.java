@@ -1,17 +1,15 @@
 package es.upv.mist.slicing.graphs.sdg;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.resolution.Resolvable;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
-import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.arcs.sdg.CallArc;
 import es.upv.mist.slicing.arcs.sdg.ParameterInOutArc;
 import es.upv.mist.slicing.graphs.CallGraph;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.io.ActualIONode;
 import es.upv.mist.slicing.nodes.io.CallNode;
-import es.upv.mist.slicing.nodes.io.FormalIONode;
-import es.upv.mist.slicing.nodes.io.OutputNode;
 import es.upv.mist.slicing.utils.Logger;
 
 /** Adds interprocedural arcs between the 'PDG components' of an SDG.
@@ -53,51 +51,31 @@ public class CallConnector {
         sdg.addCallArc(callNode, declarationNode);
 
         // Locate and connect all ACTUAL nodes
-        sdg.outgoingEdgesOf(callNode).stream()
-                .filter(Arc::isControlDependencyArc)
-                .map(sdg::getEdgeTarget)
-                .filter(ActualIONode.class::isInstance)
-                .map(ActualIONode.class::cast)
-                .forEach(actualNode -> {
-                    if (actualNode.isInput())
-                        connectActualIn(declarationNode, actualNode);
-                    else if (actualNode.isOutput())
-                        connectActualOut(declarationNode, actualNode);
-                });
+        Node call = callNode.getAstNode();
+        sdg.getActualIns(call).forEach(actualIn -> connectActualIn(declarationNode, actualIn));
+        sdg.getActualOuts(call).forEach(actualOut -> connectActualOut(declarationNode, actualOut));
 
         // Locate and connect the -output- node
-        sdg.outgoingEdgesOf(callNode).stream()
-                .filter(Arc::isControlDependencyArc)
-                .map(sdg::getEdgeTarget)
-                .filter(CallNode.Return.class::isInstance)
-                .forEach(n -> connectOutput(declarationNode, n));
+        sdg.findSyntheticNodes(call, CallNode.Return.class).forEach(n -> connectOutput(declarationNode, n));
     }
 
     /** Connects an actual-in node to its formal-in counterpart. */
     protected void connectActualIn(GraphNode<? extends CallableDeclaration<?>> declaration, ActualIONode actualIn) {
-        sdg.outgoingEdgesOf(declaration).stream()
-                .map(sdg::getEdgeTarget)
-                .filter(FormalIONode.class::isInstance)
-                .map(FormalIONode.class::cast)
+        sdg.getFormalIns(declaration.getAstNode()).stream()
                 .filter(actualIn::matchesFormalIO)
                 .forEach(formalIn -> sdg.addParameterInOutArc(actualIn, formalIn));
     }
 
     /** Connects an actual-out node to its formal-out counterpart. Arc in reverse direction. */
     protected void connectActualOut(GraphNode<? extends CallableDeclaration<?>> declaration, ActualIONode actualOut) {
-        sdg.outgoingEdgesOf(declaration).stream()
-                .map(sdg::getEdgeTarget)
-                .filter(FormalIONode.class::isInstance)
-                .map(FormalIONode.class::cast)
+        sdg.getFormalOuts(declaration.getAstNode()).stream()
                 .filter(actualOut::matchesFormalIO)
                 .forEach(formalOut -> sdg.addParameterInOutArc(formalOut, actualOut));
     }
 
     /** Connects a method call return node to its method output counterpart. Arc in reverse direction. */
     protected void connectOutput(GraphNode<? extends CallableDeclaration<?>> methodDeclaration, GraphNode<?> methodOutputNode) {
-        sdg.outgoingEdgesOf(methodDeclaration).stream()
-                .map(sdg::getEdgeTarget)
-                .filter(OutputNode.class::isInstance)
-                .forEach(n -> sdg.addParameterInOutArc(n, methodOutputNode));
+        sdg.getOutputNode(methodDeclaration.getAstNode())
+                .ifPresent(n -> sdg.addParameterInOutArc(n, methodOutputNode));
     }
 }
@@ -0,0 +1,244 @@
+package es.upv.mist.slicing.graphs.sdg;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.arcs.pdg.ConditionalControlDependencyArc;
+import es.upv.mist.slicing.arcs.sdg.CallArc;
+import es.upv.mist.slicing.arcs.sdg.ParameterInOutArc;
+import es.upv.mist.slicing.arcs.sdg.ReturnArc;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.SyntheticNode;
+import es.upv.mist.slicing.slicing.FrozenSlicingAlgorithm;
+import es.upv.mist.slicing.slicing.Slice;
+import es.upv.mist.slicing.slicing.Sliceable;
+import es.upv.mist.slicing.slicing.SlicingCriterion;
+import es.upv.mist.slicing.utils.ASTUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An immutable copy of a built {@link SDG}, stored in compressed sparse row format for backward traversal.
+ * <br/>
+ * Each node is identified by its index, from 0 to {@link #getNodeCount()} (exclusive). The incoming arcs of
+ * node {@code i} are located between {@link #incomingStart(int) incomingStart(i)} (inclusive) and
+ * {@link #incomingEnd(int) incomingEnd(i)} (exclusive); each arc is represented only by the index of its
+ * source and a byte that describes its kind. It can be sliced with the same criteria as an SDG.
+ * @see SDG#freeze()
+ */
+public class FrozenSDG implements Sliceable {
+    public static final byte CONTROL = 0;
+    /** A control dependency arc that is {@link es.upv.mist.slicing.arcs.pdg.ControlDependencyArc#isPPDGExclusive() PPDG exclusive}. */
+    public static final byte CONTROL_PPDG = 1;
+    public static final byte DATA = 2;
+    public static final byte CALL = 3;
+    public static final byte PARAM_IN = 4;
+    public static final byte PARAM_OUT = 5;
+    public static final byte SUMMARY = 6;
+    public static final byte CC1 = 7;
+    public static final byte CC2 = 8;
+    public static final byte RETURN = 9;
+    public static final byte NON_EXEC = 10;
+    public static final byte CONTROL_FLOW = 11;
+
+    protected final GraphNode<?>[] nodes;
+    /** The index of each node, by id, or -1 if there is no node with that id. */
+    protected final int[] indexById;
+    /** The first incoming arc of each node. The last element is the number of arcs. */
+    protected final int[] offsets;
+    /** The source of each arc. */
+    protected final int[] sources;
+    /** The kind of each arc. */
+    protected final byte[] kinds;
+    /** The nodes that are pseudo-predicates, which should only be traversed once through control dependencies. */
+    protected final BitSet pseudoPredicates = new BitSet();
+    /** The nodes that represent each AST node, for the slicing criteria. */
+    protected final Map<Node, int[]> astNodeMap = ASTUtils.newIdentityHashMap();
+    protected final NodeList<CompilationUnit> compilationUnits;
+
+    /** Copies the given SDG, which must have been built. */
+    public FrozenSDG(SDG sdg, Predicate<GraphNode<?>> isPseudoPredicate) {
+        if (!sdg.isBuilt())
+            throw new IllegalStateException("Only built graphs can be frozen");
+        compilationUnits = sdg.getCompilationUnits();
+        int n = sdg.vertexSet().size();
+        nodes = sdg.vertexSet().toArray(GraphNode<?>[]::new);
+        long maxId = -1;
+        for (GraphNode<?> node : nodes)
+            maxId = Math.max(maxId, node.getId());
+        indexById = new int[Math.toIntExact(maxId + 1)];
+        Arrays.fill(indexById, -1);
+        for (int i = 0; i < n; i++)
+            indexById[(int) nodes[i].getId()] = i;
+        offsets = new int[n + 1];
+        // Arcs are compared by value, so the incoming arcs of the nodes may outnumber the graph's edge set
+        int arcCount = 0;
+        for (GraphNode<?> node : nodes)
+            arcCount += sdg.inDegreeOf(node);
+        sources = new int[arcCount];
+        kinds = new byte[sources.length];
+        Map<Node, List<Integer>> astNodes = ASTUtils.newIdentityHashMap();
+        int arc = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = arc;
+            for (Arc a : sdg.incomingEdgesOf(nodes[i])) {
+                sources[arc] = indexById[(int) sdg.getEdgeSource(a).getId()];
+                kinds[arc] = kindOf(a);
+                arc++;
+            }
+            if (isPseudoPredicate.test(nodes[i]))
+                pseudoPredicates.set(i);
+            astNodes.computeIfAbsent(nodes[i].getAstNode(), k -> new ArrayList<>(1)).add(i);
+        }
+        offsets[n] = arc;
+        astNodes.forEach((k, v) -> astNodeMap.put(k, v.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /** The code that represents the kind of the given arc. */
+    protected static byte kindOf(Arc arc) {
+        if (arc instanceof ConditionalControlDependencyArc.CC1)
+            return CC1;
+        if (arc instanceof ConditionalControlDependencyArc.CC2)
+            return CC2;
+        if (arc.isControlDependencyArc())
+            return arc.asControlDependencyArc().isPPDGExclusive() ? CONTROL_PPDG : CONTROL;
+        if (arc.isDataDependencyArc())
+            return DATA;
+        if (arc instanceof CallArc)
+            return CALL;
+        if (arc instanceof ParameterInOutArc) {
+            if (arc.isInterproceduralInputArc())
+                return PARAM_IN;
+            if (arc.isInterproceduralOutputArc())
+                return PARAM_OUT;
+        }
+        if (arc.isSummaryArc())
+            return SUMMARY;
+        if (arc instanceof ReturnArc)
+            return RETURN;
+        if (arc.isNonExecutableControlFlowArc())
+            return NON_EXEC;
+        if (arc.isControlFlowArc())
+            return CONTROL_FLOW;
+        throw new IllegalArgumentException("Unknown kind of arc: " + arc);
+    }
+
+    /** @see Arc#isInterproceduralInputArc() */
+    public static boolean isInterproceduralInput(byte kind) {
+        return kind == CALL || kind == PARAM_IN;
+    }
+
+    /** @see Arc#isInterproceduralOutputArc() */
+    public static boolean isInterproceduralOutput(byte kind) {
+        return kind == PARAM_OUT || kind == RETURN;
+    }
+
+    /** @see es.upv.mist.slicing.arcs.sdg.InterproceduralArc */
+    public static boolean isInterprocedural(byte kind) {
+        return isInterproceduralInput(kind) || isInterproceduralOutput(kind);
+    }
+
+    /** @see Arc#isControlDependencyArc() */
+    public static boolean isControlDependency(byte kind) {
+        return kind == CONTROL || kind == CONTROL_PPDG || kind == CC1 || kind == CC2;
+    }
+
+    @Override
+    public Slice slice(SlicingCriterion slicingCriterion) {
+        Optional<GraphNode<?>> optSlicingNode = slicingCriterion.findNode(this);
+        if (optSlicingNode.isEmpty())
+            throw new IllegalArgumentException("Could not locate the slicing criterion in the SDG");
+        return createSlicingAlgorithm().traverse(optSlicingNode.get());
+    }
+
+    /** Slices all criteria at once, see {@link FrozenSlicingAlgorithm#traverseAll(List)}. */
+    @Override
+    public List<Slice> sliceAll(Collection<? extends SlicingCriterion> criteria) {
+        List<GraphNode<?>> slicingNodes = new ArrayList<>(criteria.size());
+        for (SlicingCriterion criterion : criteria) {
+            Optional<GraphNode<?>> optSlicingNode = criterion.findNode(this);
+            if (optSlicingNode.isEmpty())
+                throw new IllegalArgumentException("Could not locate the slicing criterion " + criterion + " in the SDG");
+            slicingNodes.add(optSlicingNode.get());
+        }
+        return createSlicingAlgorithm().traverseAll(slicingNodes);
+    }
+
+    protected FrozenSlicingAlgorithm createSlicingAlgorithm() {
+        return new FrozenSlicingAlgorithm(this);
+    }
+
+    /** Obtain the list of compilation units used to create the original graph. */
+    public NodeList<CompilationUnit> getCompilationUnits() {
+        return compilationUnits;
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public GraphNode<?> getNode(int index) {
+        return nodes[index];
+    }
+
+    /** The index of the given node, or -1 if it is not part of this graph. */
+    public int indexOf(GraphNode<?> node) {
+        long id = node.getId();
+        if (id < 0 || id >= indexById.length)
+            return -1;
+        int index = indexById[(int) id];
+        return index >= 0 && nodes[index] == node ? index : -1;
+    }
+
+    /** The position of the first incoming arc of the given node. */
+    public int incomingStart(int node) {
+        return offsets[node];
+    }
+
+    /** The position after the last incoming arc of the given node. */
+    public int incomingEnd(int node) {
+        return offsets[node + 1];
+    }
+
+    /** The index of the source of the arc at the given position. */
+    public int getSource(int arc) {
+        return sources[arc];
+    }
+
+    /** The kind of the arc at the given position. */
+    public byte getKind(int arc) {
+        return kinds[arc];
+    }
+
+    public boolean isPseudoPredicate(int node) {
+        return pseudoPredicates.get(node);
+    }
+
+    /** Search for a node in the graph given its id. */
+    public Optional<GraphNode<?>> findNodeById(long id) {
+        if (id < 0 || id >= indexById.length || indexById[(int) id] < 0)
+            return Optional.empty();
+        return Optional.of(nodes[indexById[(int) id]]);
+    }
+
+    /** Search for the node that represents the given AST node, preferring non-synthetic nodes.
+     *  Unlike {@link SDG#findNodeByASTNode(Node)}, the AST node is compared by identity. */
+    public Optional<GraphNode<?>> findNodeByASTNode(Node astNode) {
+        int[] indices = astNodeMap.get(astNode);
+        if (indices == null)
+            return Optional.empty();
+        if (indices.length == 1)
+            return Optional.of(nodes[indices[0]]);
+        GraphNode<?> found = null;
+        for (int index : indices) {
+            if (nodes[index] instanceof SyntheticNode)
+                continue;
+            if (found != null)
+                throw new IllegalStateException("There may only be one real node representing each AST node in the graph!");
+            found = nodes[index];
+        }
+        return Optional.ofNullable(found);
+    }
+}
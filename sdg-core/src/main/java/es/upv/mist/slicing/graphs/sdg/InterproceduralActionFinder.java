@@ -10,11 +10,15 @@ import es.upv.mist.slicing.graphs.CallGraph;
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.nodes.VariableAction;
 import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import es.upv.mist.slicing.utils.Logger;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 // TODO: this approach of generating actual nodes may skip an argument; this is only a problem if there is a definition
 // TODO: update placement of actual and formal outputs for ESSDG (see if the definition/usage reaches all/any exits).
@@ -25,10 +29,22 @@ import java.util.function.Consumer;
  */
 public abstract class InterproceduralActionFinder<A extends VariableAction> extends BackwardDataFlowAnalysis<CallGraph.Vertex, CallGraph.Edge<?>, Set<InterproceduralActionFinder.StoredAction<A>>> {
     protected final Map<CallableDeclaration<?>, CFG> cfgMap;
+    /** The context whose lock guards the resolutions performed while saving the actions. Only the resolutions
+     *  and the creation of the nodes (whose labels describe the resolved types) hold it; the actions are added to
+     *  the CFGs outside it, as each declaration is only computed by one task and only modifies its own CFG. */
+    protected final AnalysisContext context;
+    /** The actions that have been saved as actual nodes of each call. The map is filled when the finder is created,
+     *  and each set is only modified by the task that computes the caller, so neither of them has to be guarded. */
+    protected final Map<CallGraph.Edge<?>, Set<StoredAction<A>>> actualSavedMap = ASTUtils.newIdentityHashMap();
 
     public InterproceduralActionFinder(CallGraph callGraph, Map<CallableDeclaration<?>, CFG> cfgMap) {
-        super(callGraph);
+        super(callGraph, true);
+        if (!callGraph.locatesCalls())
+            throw new IllegalArgumentException("The call graph must locate its calls in the CFGs");
         this.cfgMap = cfgMap;
+        this.context = callGraph.getContext();
+        for (CallGraph.Edge<?> edge : callGraph.edgeSet())
+            actualSavedMap.put(edge, new HashSet<>());
     }
 
     // ===========================================================
@@ -41,18 +57,46 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
         graph.vertexSet().forEach(this::saveDeclaration);
     }
 
+    /** Entry-point to the class. Performs the analysis in the given pool and then saves the results to the CFG nodes. */
+    public void save(ForkJoinPool pool) {
+        if (!built) analyze(pool);
+        graph.vertexSet().forEach(this::saveDeclaration);
+    }
+
     /** Save the current set of actions associated to the given declaration. It will avoid saving
      *  duplicates by default, so this method may be called multiple times safely. */
     protected void saveDeclaration(CallGraph.Vertex vertex) {
-        Set<StoredAction<A>> storedActions = vertexDataMap.get(vertex);
+        saveDeclaration(vertex, vertexDataMap.get(vertex));
+    }
 
-        // FORMAL: per declaration (1)
+    /** Save the given set of actions, associated to the given declaration. */
+    protected void saveDeclaration(CallGraph.Vertex vertex, Set<StoredAction<A>> storedActions) {
+        saveFormal(vertex, storedActions);
+        for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex))
+            saveActual(edge, storedActions);
+    }
+
+    /** Save the given set of actions as formal nodes of the given declaration (1 per declaration). */
+    protected void saveFormal(CallGraph.Vertex vertex, Set<StoredAction<A>> storedActions) {
         for (StoredAction<A> sa : storedActions)
             sa.storeFormal(a -> sandBoxedHandler(vertex.getDeclaration(), a, this::handleFormalAction));
-        // ACTUAL: per call (n)
-        for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex))
-            storedActions.stream().sorted(new ParameterFieldSorter(edge))
-                    .forEach(sa -> sa.storeActual(edge, (e, a) -> sandBoxedHandler(e, a, this::handleActualAction)));
+    }
+
+    /** Save the given set of actions, which belong to the target of the edge, as actual nodes of the call (1 per call).
+     *  Actions that have already been saved for the call are skipped. */
+    protected void saveActual(CallGraph.Edge<?> edge, Set<StoredAction<A>> storedActions) {
+        Set<StoredAction<A>> savedActions = actualSavedMap.get(edge);
+        List<StoredAction<A>> newActions = storedActions.stream()
+                .filter(Predicate.not(savedActions::contains))
+                .collect(Collectors.toList());
+        // The comparator resolves the variables of the actions
+        synchronized (context.getLock()) {
+            newActions.sort(new ParameterFieldSorter(edge));
+        }
+        for (StoredAction<A> sa : newActions) {
+            savedActions.add(sa);
+            sandBoxedHandler(edge, sa.getAction(), this::handleActualAction);
+        }
     }
 
     /** A sandbox to avoid resolution errors when a variable is included that is a class name
@@ -65,10 +109,10 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
         }
     }
 
-    /** Generate the formal node(s) related to this action and declaration. */
+    /** Generate the formal node(s) related to this action and declaration. Resolutions must hold the lock of the context. */
     protected abstract void handleFormalAction(CallableDeclaration<?> declaration, A action);
 
-    /** Generate the actual node(s) related to this action and call. */
+    /** Generate the actual node(s) related to this action and call. Resolutions must hold the lock of the context. */
     protected abstract void handleActualAction(CallGraph.Edge<?> edge, A action);
 
     /** Obtains the expression passed as argument for the given action at the given call. If {@code input}
@@ -91,9 +135,13 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
 
     @Override
     protected Set<StoredAction<A>> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
-        saveDeclaration(vertex);
-        Set<StoredAction<A>> newValue = new HashSet<>(vertexDataMap.get(vertex));
+        // Bring the actions of the callees to the calls in this declaration, so that they are part of its value.
+        // Each declaration only modifies its own CFG, which allows declarations to be computed in parallel.
+        for (CallGraph.Edge<?> edge : graph.outgoingEdgesOf(vertex))
+            saveActual(edge, vertexDataMap.get(graph.getEdgeTarget(edge)));
+        Set<StoredAction<A>> newValue = new LinkedHashSet<>(vertexDataMap.get(vertex));
         newValue.addAll(initialValue(vertex));
+        saveFormal(vertex, newValue);
         return newValue;
     }
 
@@ -140,12 +188,10 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
         }
     }
 
-    /** A wrapper around a variable action, which keeps track of whether formal and actual nodes
-     *  have been saved to the graph or not. */
+    /** A wrapper around a variable action, which keeps track of whether the formal nodes have been saved
+     *  to the graph or not. The actual nodes of each call are tracked by the finder, see {@link #actualSavedMap}. */
     protected static class StoredAction<A extends VariableAction> {
         protected final A action;
-        /** Whether the action has been saved as actual node for each call. */
-        private final Map<CallGraph.Edge<?>, Boolean> actualStoredMap = new HashMap<>();
 
         /** Whether the action has been saved as formal node. */
         protected boolean formalStored = false;
@@ -166,15 +212,6 @@ public abstract class InterproceduralActionFinder<A extends VariableAction> exte
             }
         }
 
-        /** If this action has not yet been saved as actual node for the given edge,
-         * use the consumer to do so, then mark it as stored. */
-        private void storeActual(CallGraph.Edge<?> edge, BiConsumer<CallGraph.Edge<?>, A> save) {
-            if (!actualStoredMap.getOrDefault(edge, false)) {
-                save.accept(edge, action);
-                actualStoredMap.put(edge, true);
-            }
-        }
-
         @Override
         public int hashCode() {
             return Objects.hash(action);
@@ -6,6 +6,7 @@ import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
 import es.upv.mist.slicing.graphs.CallGraph;
 import es.upv.mist.slicing.graphs.cfg.CFG;
+import es.upv.mist.slicing.graphs.cfg.ReachingDefinitions;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.VariableAction;
 import es.upv.mist.slicing.nodes.io.ActualIONode;
@@ -13,6 +14,7 @@ import es.upv.mist.slicing.nodes.io.FormalIONode;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -27,25 +29,35 @@ public class InterproceduralDefinitionFinder extends InterproceduralActionFinder
     @Override
     protected void handleFormalAction(CallableDeclaration<?> declaration, VariableAction.Definition def) {
         CFG cfg = cfgMap.get(declaration);
-        ResolvedValueDeclaration resolved = def.getResolvedValueDeclaration();
-        if (!resolved.isParameter() || !resolved.getType().isPrimitive()) {
-            FormalIONode formalOut = FormalIONode.createFormalOut(declaration, resolved);
-            cfg.getExitNode().addMovableVariable(new VariableAction.Movable(def.toUsage(cfg.getExitNode()), formalOut));
+        FormalIONode formalOut = null;
+        FormalIONode formalIn;
+        synchronized (context.getLock()) {
+            ResolvedValueDeclaration resolved = def.getResolvedValueDeclaration();
+            if (!resolved.isParameter() || !resolved.getType().isPrimitive())
+                formalOut = FormalIONode.createFormalOut(declaration, resolved);
+            formalIn = FormalIONode.createFormalInDecl(declaration, resolved);
         }
-        FormalIONode formalIn = FormalIONode.createFormalInDecl(declaration, resolved);
+        if (formalOut != null)
+            cfg.getExitNode().addMovableVariable(new VariableAction.Movable(def.toUsage(cfg.getExitNode()), formalOut));
         cfg.getRootNode().addMovableVariable(new VariableAction.Movable(def.toDeclaration(cfg.getRootNode()), formalIn));
     }
 
     @Override
     protected void handleActualAction(CallGraph.Edge<?> edge, VariableAction.Definition def) {
-        Set<VariableAction.Movable> movables = new HashSet<>();
+        Set<VariableAction.Movable> movables = new LinkedHashSet<>();
         GraphNode<?> graphNode = edge.getGraphNode();
-        ResolvedValueDeclaration resolved = def.getResolvedValueDeclaration();
-        Expression arg = extractArgument(def, edge, false);
-        if (arg == null)
-            return;
-        ActualIONode actualOut = ActualIONode.createActualOut(edge.getCall(), resolved, arg);
-        if (resolved.isParameter()) {
+        Expression arg;
+        ActualIONode actualOut;
+        boolean parameter;
+        synchronized (context.getLock()) {
+            ResolvedValueDeclaration resolved = def.getResolvedValueDeclaration();
+            arg = extractArgument(def, edge, false);
+            if (arg == null)
+                return;
+            actualOut = ActualIONode.createActualOut(edge.getCall(), resolved, arg);
+            parameter = resolved.isParameter();
+        }
+        if (parameter) {
             Set<NameExpr> exprSet = new HashSet<>();
             arg.accept(new OutNodeVariableVisitor(), exprSet);
             for (NameExpr nameExpr : exprSet)
@@ -61,14 +73,15 @@ public class InterproceduralDefinitionFinder extends InterproceduralActionFinder
         CFG cfg = cfgMap.get(vertex.getDeclaration());
         if (cfg == null)
             return Collections.emptySet();
+        ReachingDefinitions reachingDefinitions = new ReachingDefinitions(cfg);
         return cfg.vertexSet().stream()
                 .filter(n -> n != cfg.getRootNode())
                 .flatMap(n -> n.getVariableActions().stream())
                 .filter(VariableAction::isDefinition)
                 .filter(Predicate.not(VariableAction::isSynthetic))
                 .map(VariableAction::asDefinition)
-                .filter(def -> cfg.findDeclarationFor(def).isEmpty())
+                .filter(def -> reachingDefinitions.findDeclarationFor(def).isEmpty())
                 .map(this::wrapAction)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 }
@@ -2,9 +2,9 @@ package es.upv.mist.slicing.graphs.sdg;
 
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.expr.Expression;
-import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
 import es.upv.mist.slicing.graphs.CallGraph;
 import es.upv.mist.slicing.graphs.cfg.CFG;
+import es.upv.mist.slicing.graphs.cfg.ReachingDefinitions;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.nodes.VariableAction;
 import es.upv.mist.slicing.nodes.VariableVisitor;
@@ -12,7 +12,7 @@ import es.upv.mist.slicing.nodes.io.ActualIONode;
 import es.upv.mist.slicing.nodes.io.FormalIONode;
 
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -27,18 +27,23 @@ public class InterproceduralUsageFinder extends InterproceduralActionFinder<Vari
     @Override
     protected void handleFormalAction(CallableDeclaration<?> declaration, VariableAction.Usage use) {
         CFG cfg = cfgMap.get(declaration);
-        ResolvedValueDeclaration resolved = use.getResolvedValueDeclaration();
-        FormalIONode formalIn = FormalIONode.createFormalIn(declaration, resolved);
+        FormalIONode formalIn;
+        synchronized (context.getLock()) {
+            formalIn = FormalIONode.createFormalIn(declaration, use.getResolvedValueDeclaration());
+        }
         cfg.getRootNode().addMovableVariable(new VariableAction.Movable(use.toDefinition(cfg.getRootNode()), formalIn));
     }
 
     @Override
     protected void handleActualAction(CallGraph.Edge<?> edge, VariableAction.Usage use) {
-        Set<VariableAction.Movable> movables = new HashSet<>();
+        Set<VariableAction.Movable> movables = new LinkedHashSet<>();
         GraphNode<?> graphNode = edge.getGraphNode();
-        ResolvedValueDeclaration resolved = use.getResolvedValueDeclaration();
-        Expression argument = extractArgument(use, edge, true);
-        ActualIONode actualIn = ActualIONode.createActualIn(edge.getCall(), resolved, argument);
+        Expression argument;
+        ActualIONode actualIn;
+        synchronized (context.getLock()) {
+            argument = extractArgument(use, edge, true);
+            actualIn = ActualIONode.createActualIn(edge.getCall(), use.getResolvedValueDeclaration(), argument);
+        }
         argument.accept(new VariableVisitor(
                 (n, name) -> movables.add(new VariableAction.Movable(new VariableAction.Declaration(name, graphNode), actualIn)),
                 (n, name, expression) -> movables.add(new VariableAction.Movable(new VariableAction.Definition(name, graphNode, expression), actualIn)),
@@ -52,14 +57,15 @@ public class InterproceduralUsageFinder extends InterproceduralActionFinder<Vari
         CFG cfg = cfgMap.get(vertex.getDeclaration());
         if (cfg == null)
             return Collections.emptySet();
+        ReachingDefinitions reachingDefinitions = new ReachingDefinitions(cfg);
         return cfg.vertexSet().stream()
                 .filter(n -> n != cfg.getRootNode())
                 .flatMap(n -> n.getVariableActions().stream())
                 .filter(VariableAction::isUsage)
                 .filter(Predicate.not(VariableAction::isSynthetic))
                 .map(VariableAction::asUsage)
-                .filter(Predicate.not(cfg::isCompletelyDefined))
+                .filter(Predicate.not(reachingDefinitions::isCompletelyDefined))
                 .map(this::wrapAction)
-                .collect(Collectors.toSet());
+                .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 }
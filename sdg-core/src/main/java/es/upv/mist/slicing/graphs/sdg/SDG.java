@@ -1,12 +1,14 @@
 package es.upv.mist.slicing.graphs.sdg;
 
 import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.body.ConstructorDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.arcs.pdg.ControlDependencyArc;
 import es.upv.mist.slicing.arcs.pdg.DataDependencyArc;
 import es.upv.mist.slicing.arcs.sdg.CallArc;
@@ -21,17 +23,24 @@ import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.cfg.CFGBuilder;
 import es.upv.mist.slicing.graphs.pdg.PDG;
 import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.IdHelper;
 import es.upv.mist.slicing.nodes.SyntheticNode;
 import es.upv.mist.slicing.nodes.VariableAction;
 import es.upv.mist.slicing.nodes.io.ActualIONode;
 import es.upv.mist.slicing.nodes.io.CallNode;
+import es.upv.mist.slicing.nodes.io.FormalIONode;
+import es.upv.mist.slicing.nodes.io.OutputNode;
 import es.upv.mist.slicing.slicing.*;
 import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.AnalysisContext;
 
-import java.util.Collection;
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * The <b>System Dependence Graph</b> represents the statements of a program in
@@ -44,18 +53,33 @@ import java.util.Set;
  *      <li>Slice a graph: {@link #slice(SlicingCriterion)}</li>
  *      <li>Obtain the sliced Java: {@link Slice#toAst()}</li>
  * </ol>
+ * Once built, the graph can't be modified, and it may be sliced concurrently from multiple threads:
+ * each call to {@link #slice(SlicingCriterion)} uses its own {@link SlicingAlgorithm} and only reads the graph.
  */
 public class SDG extends Graph implements Sliceable, Buildable<NodeList<CompilationUnit>> {
     protected final Map<CallableDeclaration<?>, CFG> cfgMap = ASTUtils.newIdentityHashMap();
+    /** The synthetic nodes of this graph, indexed by the declaration or call they belong to. */
+    protected final Map<Node, List<SyntheticNode<?>>> syntheticNodeMap = ASTUtils.newIdentityHashMap();
 
     protected boolean built = false;
     protected NodeList<CompilationUnit> compilationUnits;
+    /** The context in which the compilation units were parsed, which resolves their symbols. */
+    protected AnalysisContext context;
+    /** The pool in which the independent parts of this graph are built. If null, it is built sequentially. */
+    protected ForkJoinPool buildPool = null;
+    /** The immutable copy of this graph, see {@link #freeze()}. */
+    protected volatile FrozenSDG frozenSDG;
 
     /** Obtain the list of compilation units used to create this graph. */
     public NodeList<CompilationUnit> getCompilationUnits() {
         return compilationUnits;
     }
 
+    /** Obtain the context of the analysis, see {@link AnalysisContext#of(NodeList)}. */
+    public AnalysisContext getContext() {
+        return context;
+    }
+
     @Override
     public Slice slice(SlicingCriterion slicingCriterion) {
         Optional<GraphNode<?>> optSlicingNode = slicingCriterion.findNode(this);
@@ -64,17 +88,82 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
         return createSlicingAlgorithm().traverse(optSlicingNode.get());
     }
 
+    /** Slices the {@link #freeze() frozen copy} of this graph, which traverses it once per group of 64 criteria. */
+    @Override
+    public List<Slice> sliceAll(Collection<? extends SlicingCriterion> criteria) {
+        return freeze().sliceAll(criteria);
+    }
+
+    /** Create the algorithm used by a single call to {@link #slice(SlicingCriterion)}. */
     protected SlicingAlgorithm createSlicingAlgorithm() {
         return new ClassicSlicingAlgorithm(this);
     }
 
+    /** Build this graph from the given compilation units, which must belong to the same {@link AnalysisContext}. */
     @Override
     public void build(NodeList<CompilationUnit> nodeList) {
-        createBuilder().build(nodeList);
+        context = AnalysisContext.of(nodeList);
+        idHelper.run(() -> createBuilder().build(nodeList));
+        completeBuild(nodeList);
+    }
+
+    /** Build only the part of the graph that may be traversed when slicing with the given criterion: the
+     *  method or constructor that contains it, the declarations that may call it (transitively) and the
+     *  declarations that may be called from any of those (transitively). The slice of the criterion is the
+     *  same as in a graph built with {@link #build(NodeList)}, and the whole program must still be given
+     *  to find the calls.
+     *  @throws IllegalArgumentException If the criterion is not contained in a method or constructor. */
+    public void buildOnDemand(NodeList<CompilationUnit> nodeList, SlicingCriterion slicingCriterion) {
+        Optional<CallableDeclaration<?>> declaration = slicingCriterion.findDeclaration(nodeList);
+        if (declaration.isEmpty())
+            throw new IllegalArgumentException("Could not locate the slicing criterion in a method or constructor");
+        context = AnalysisContext.of(nodeList);
+        idHelper.run(() -> createBuilder().build(nodeList, declaration.get()));
+        completeBuild(nodeList);
+    }
+
+    protected void completeBuild(NodeList<CompilationUnit> nodeList) {
         compilationUnits = nodeList;
+        // The views of the arcs of each node are created lazily, create them before any concurrent read
+        for (GraphNode<?> node : vertexSet()) {
+            incomingEdgesOf(node);
+            outgoingEdgesOf(node);
+        }
         built = true;
     }
 
+    /** The number of ids generated while building this graph. The nodes created by the
+     *  build have dense ids, in the range [0, count), so they may be used as array indices. */
+    public int getNodeIdCount() {
+        return Math.toIntExact(idHelper.getIdCount());
+    }
+
+    /** Set the pool in which the independent parts of this graph are built (CFGs, PDGs and
+     *  interprocedural analyses), or null to build it sequentially. It must be set before building the graph. */
+    public void setBuildPool(ForkJoinPool buildPool) {
+        this.buildPool = buildPool;
+    }
+
+    /** Obtain an immutable copy of this graph, in which slices can be computed faster and with less memory.
+     *  The copy is created on the first call and shared by the following ones. This graph must have been built.
+     *  @throws IllegalStateException If this graph has not been built. */
+    public FrozenSDG freeze() {
+        FrozenSDG frozen = frozenSDG;
+        if (frozen == null) {
+            synchronized (this) {
+                if (frozenSDG == null)
+                    frozenSDG = createFrozenSDG();
+                frozen = frozenSDG;
+            }
+        }
+        return frozen;
+    }
+
+    /** Create the immutable copy of this graph returned by {@link #freeze()}. */
+    protected FrozenSDG createFrozenSDG() {
+        return new FrozenSDG(this, node -> false);
+    }
+
     /** Create a new SDG builder. Child classes that wish to alter the creation of the graph
      * should create a new SDG builder and override this method. */
     protected Builder createBuilder() {
@@ -91,6 +180,111 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
         return cfgMap.values();
     }
 
+    /** @throws IllegalStateException If this graph has been built, as it may be read concurrently. */
+    protected void checkModifiable() {
+        if (built)
+            throw new IllegalStateException("A built SDG can't be modified");
+    }
+
+    /** @throws IllegalArgumentException If the node is added while building this graph, but its id was not
+     *  generated by this graph's helper (e.g. because it was created in a thread that was not running the build). */
+    @Override
+    public boolean addVertex(GraphNode<?> node) {
+        checkModifiable();
+        if (idHelper.isCurrent() && node.getIdHelper().getRoot() != idHelper)
+            throw new IllegalArgumentException("The node " + node + " was not created by the build of this graph");
+        if (!super.addVertex(node))
+            return false;
+        if (node instanceof SyntheticNode)
+            syntheticNodeMap.computeIfAbsent(node.getAstNode(), n -> new LinkedList<>()).add((SyntheticNode<?>) node);
+        return true;
+    }
+
+    @Override
+    public boolean removeVertex(GraphNode<?> node) {
+        checkModifiable();
+        if (!super.removeVertex(node))
+            return false;
+        if (node instanceof SyntheticNode) {
+            List<SyntheticNode<?>> list = syntheticNodeMap.get(node.getAstNode());
+            list.remove(node);
+            if (list.isEmpty())
+                syntheticNodeMap.remove(node.getAstNode());
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addEdge(GraphNode<?> sourceVertex, GraphNode<?> targetVertex, Arc arc) {
+        checkModifiable();
+        return super.addEdge(sourceVertex, targetVertex, arc);
+    }
+
+    @Override
+    public boolean removeEdge(Arc arc) {
+        checkModifiable();
+        return super.removeEdge(arc);
+    }
+
+    @Override
+    public Arc removeEdge(GraphNode<?> sourceVertex, GraphNode<?> targetVertex) {
+        checkModifiable();
+        return super.removeEdge(sourceVertex, targetVertex);
+    }
+
+    /** Obtain the synthetic nodes of the given type that belong to a declaration or call.
+     *  The AST node is compared by identity. */
+    public <T> List<T> findSyntheticNodes(Node astNode, Class<T> type) {
+        return syntheticNodeMap.getOrDefault(astNode, Collections.emptyList()).stream()
+                .filter(type::isInstance)
+                .map(type::cast)
+                .collect(Collectors.toList());
+    }
+
+    /** Obtain the formal-in nodes of the given declaration. */
+    public List<FormalIONode> getFormalIns(CallableDeclaration<?> declaration) {
+        List<FormalIONode> list = findSyntheticNodes(declaration, FormalIONode.class);
+        list.removeIf(FormalIONode::isOutput);
+        return list;
+    }
+
+    /** Obtain the formal-out nodes of the given declaration. */
+    public List<FormalIONode> getFormalOuts(CallableDeclaration<?> declaration) {
+        List<FormalIONode> list = findSyntheticNodes(declaration, FormalIONode.class);
+        list.removeIf(FormalIONode::isInput);
+        return list;
+    }
+
+    /** Obtain the node that represents the value returned by the given declaration, if it has one. */
+    public Optional<OutputNode<?>> getOutputNode(CallableDeclaration<?> declaration) {
+        return findSyntheticNodes(declaration, OutputNode.class).stream()
+                .findFirst().map(n -> (OutputNode<?>) n);
+    }
+
+    /** Obtain the call node that represents the given call. */
+    public Optional<CallNode> getCallNode(Node call) {
+        return findSyntheticNodes(call, CallNode.class).stream().findFirst();
+    }
+
+    /** Obtain the actual-in nodes of the given call. */
+    public List<ActualIONode> getActualIns(Node call) {
+        List<ActualIONode> list = findSyntheticNodes(call, ActualIONode.class);
+        list.removeIf(ActualIONode::isOutput);
+        return list;
+    }
+
+    /** Obtain the actual-out nodes of the given call. */
+    public List<ActualIONode> getActualOuts(Node call) {
+        List<ActualIONode> list = findSyntheticNodes(call, ActualIONode.class);
+        list.removeIf(ActualIONode::isInput);
+        return list;
+    }
+
+    /** Obtain the node that represents the value returned by the given call, if it has one. */
+    public Optional<CallNode.Return> getCallReturn(Node call) {
+        return findSyntheticNodes(call, CallNode.Return.class).stream().findFirst();
+    }
+
     public void addCallArc(GraphNode<?> from, GraphNode<? extends CallableDeclaration<?>> to) {
         this.addEdge(from, to, new CallArc());
     }
@@ -107,6 +301,9 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
      *  building the PDGs, connecting the calls to declarations and computing the summary arcs.
      *  By default, it uses {@link PDG}s and {@link CFG}s. */
     public class Builder {
+        /** The declarations found in the compilation units, in the order in which they appear. */
+        protected final List<CallableDeclaration<?>> declarations = new LinkedList<>();
+
         public void build(NodeList<CompilationUnit> nodeList) {
             // See creation strategy at http://kaz2.dsic.upv.es:3000/Fzg46cQvT1GzHQG9hFnP1g#Using-data-flow-in-the-SDG
             buildCFGs(nodeList);                             // 1
@@ -118,23 +315,94 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             createSummaryArcs(callGraph);                    // 6
         }
 
+        /** Build the graph only for the declarations that a slice of a criterion contained in the given
+         *  declaration may traverse. The call graph is first built for the whole program, without CFGs,
+         *  to find those declarations; and then restricted to them, once their CFGs have been built.
+         *  @see SDG#buildOnDemand(NodeList, SlicingCriterion) */
+        public void build(NodeList<CompilationUnit> nodeList, CallableDeclaration<?> declaration) {
+            ClassGraph classGraph = createClassGraph(nodeList);
+            CallGraph programCallGraph = new CallGraph(classGraph);
+            programCallGraph.build(nodeList);
+            Set<CallableDeclaration<?>> demanded = findDemandedDeclarations(programCallGraph, declaration);
+            buildCFGs(nodeList, demanded::contains);         // 1
+            CallGraph callGraph = programCallGraph.subgraph(demanded, cfgMap); // 2
+            dataFlowAnalysis(callGraph);                     // 3
+            buildAndCopyPDGs();                              // 4
+            connectCalls(callGraph);                         // 5
+            createSummaryArcs(callGraph);                    // 6
+        }
+
+        /** The declarations that a slice may traverse from the given one. The first pass of the slice
+         *  ascends to the callers, and the second one descends to the callees of every declaration reached. */
+        protected Set<CallableDeclaration<?>> findDemandedDeclarations(CallGraph callGraph, CallableDeclaration<?> declaration) {
+            Set<CallableDeclaration<?>> callers = reachableDeclarations(Set.of(declaration), callGraph::callersOf);
+            return reachableDeclarations(callers, callGraph::calleesOf);
+        }
+
+        /** The given declarations and those reachable from them through the given relation. */
+        protected Set<CallableDeclaration<?>> reachableDeclarations(Set<CallableDeclaration<?>> from,
+                                                                    Function<CallableDeclaration<?>, Stream<CallableDeclaration<?>>> next) {
+            Set<CallableDeclaration<?>> reached = ASTUtils.newIdentityHashSet();
+            reached.addAll(from);
+            Deque<CallableDeclaration<?>> workList = new LinkedList<>(from);
+            while (!workList.isEmpty())
+                next.apply(workList.pop()).filter(reached::add).forEach(workList::add);
+            return reached;
+        }
+
         /** Build a CFG per declaration found in the list of compilation units. */
         protected void buildCFGs(NodeList<CompilationUnit> nodeList) {
+            buildCFGs(nodeList, declaration -> true);
+        }
+
+        /** Build a CFG per declaration found in the list of compilation units that passes the given filter. */
+        protected void buildCFGs(NodeList<CompilationUnit> nodeList, Predicate<CallableDeclaration<?>> filter) {
             nodeList.accept(new VoidVisitorAdapter<Void>() {
                 @Override
                 public void visit(MethodDeclaration n, Void arg) {
-                    CFG cfg = createCFG();
-                    cfg.build(n);
-                    cfgMap.put(n, cfg);
+                    if (filter.test(n))
+                        declarations.add(n);
                 }
 
                 @Override
                 public void visit(ConstructorDeclaration n, Void arg) {
-                    CFG cfg = createCFG();
-                    cfg.build(n);
-                    cfgMap.put(n, cfg);
+                    if (filter.test(n))
+                        declarations.add(n);
                 }
             }, null);
+            List<CFG> cfgs = map(declarations, declaration -> {
+                CFG cfg = createCFG();
+                cfg.build(declaration);
+                return cfg;
+            });
+            for (int i = 0; i < cfgs.size(); i++)
+                cfgMap.put(declarations.get(i), cfgs.get(i));
+        }
+
+        /** Apply a function to each element of a list, in the intraprocedural pool if there is one.
+         *  The results are returned in the same order as the elements. Each element creates its nodes
+         *  in a fork of the current {@link IdHelper}, and the forks are joined in the order of the list,
+         *  so that the ids of the nodes are the same whether the list is processed in parallel or not. */
+        protected <T, R> List<R> map(List<T> list, Function<T, R> function) {
+            IdHelper helper = IdHelper.getInstance();
+            List<IdHelper> forks = list.stream().map(t -> helper.fork()).collect(Collectors.toList());
+            ForkJoinPool pool = getIntraproceduralPool();
+            List<R> results;
+            if (pool == null)
+                results = IntStream.range(0, list.size())
+                        .mapToObj(i -> forks.get(i).call(() -> function.apply(list.get(i))))
+                        .collect(Collectors.toList());
+            else
+                results = pool.submit(() -> IntStream.range(0, list.size()).parallel()
+                        .mapToObj(i -> forks.get(i).call(() -> function.apply(list.get(i))))
+                        .collect(Collectors.toList())).join();
+            forks.forEach(IdHelper::join);
+            return results;
+        }
+
+        /** The pool in which each declaration's CFG and PDG are built, or null if they must be built sequentially. */
+        protected ForkJoinPool getIntraproceduralPool() {
+            return buildPool;
         }
 
         /** Create call graph from the list of compilation units. */
@@ -146,17 +414,23 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
 
         /** Create class graph from the list of compilation units. */
         protected ClassGraph createClassGraph(NodeList<CompilationUnit> nodeList){
-            ClassGraph classGraph = new ClassGraph();
+            ClassGraph classGraph = new ClassGraph(context);
             classGraph.build(nodeList);
             return classGraph;
         }
 
 
-        /** Perform interprocedural analyses to determine the actual, formal and call return nodes. */
+        /** Perform interprocedural analyses to determine the actual, formal and call return nodes.
+         *  The declarations that don't depend on each other are analyzed in parallel if there is a build pool. */
         protected void dataFlowAnalysis(CallGraph callGraph) {
-            new InterproceduralDefinitionFinder(callGraph, cfgMap).save(); // 3.1
-            new InterproceduralUsageFinder(callGraph, cfgMap).save();      // 3.2
-            insertCallOutput(callGraph);                                   // 3.3
+            if (buildPool == null) {
+                new InterproceduralDefinitionFinder(callGraph, cfgMap).save();          // 3.1
+                new InterproceduralUsageFinder(callGraph, cfgMap).save();               // 3.2
+            } else {
+                new InterproceduralDefinitionFinder(callGraph, cfgMap).save(buildPool); // 3.1
+                new InterproceduralUsageFinder(callGraph, cfgMap).save(buildPool);      // 3.2
+            }
+            insertCallOutput(callGraph);                                                // 3.3
         }
 
         /** Insert {@link CallNode.Return call return} nodes onto all appropriate calls. */
@@ -175,12 +449,16 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             }
         }
 
-        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses. */
+        /** Build a PDG per declaration, based on the CFGs built previously and enhanced by data analyses.
+         *  The PDGs are copied to the SDG in the order in which their declarations appear. */
         protected void buildAndCopyPDGs() {
-            for (CFG cfg : cfgMap.values()) {
+            List<PDG> pdgs = map(declarations, declaration -> {
                 // 4.1, 4.2, 4.3
-                PDG pdg = createPDG(cfg);
-                pdg.build(cfg.getDeclaration());
+                PDG pdg = createPDG(cfgMap.get(declaration));
+                pdg.build(declaration);
+                return pdg;
+            });
+            for (PDG pdg : pdgs) {
                 // 4.4
                 pdg.vertexSet().forEach(SDG.this::addVertex);
                 pdg.edgeSet().forEach(arc -> addEdge(pdg.getEdgeSource(arc), pdg.getEdgeTarget(arc), arc));
@@ -192,9 +470,10 @@ public class SDG extends Graph implements Sliceable, Buildable<NodeList<Compilat
             new CallConnector(SDG.this).connectAllCalls(callGraph);
         }
 
-        /** Connect actual-in to actual-out nodes, summarizing the interprocedural arcs. */
+        /** Connect actual-in to actual-out nodes, summarizing the interprocedural arcs.
+         *  @see WorklistSummaryArcAnalyzer */
         protected void createSummaryArcs(CallGraph callGraph) {
-            new SummaryArcAnalyzer(SDG.this, callGraph).analyze();
+            new WorklistSummaryArcAnalyzer(SDG.this, callGraph).analyze();
         }
 
         /** Create a new CFG, of the appropriate type for the kind of SDG we're building. */
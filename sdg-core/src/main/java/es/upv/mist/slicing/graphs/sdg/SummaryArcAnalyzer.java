@@ -1,5 +1,6 @@
 package es.upv.mist.slicing.graphs.sdg;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.body.CallableDeclaration;
 import es.upv.mist.slicing.graphs.BackwardDataFlowAnalysis;
 import es.upv.mist.slicing.graphs.CallGraph;
@@ -16,39 +17,30 @@ public class SummaryArcAnalyzer extends BackwardDataFlowAnalysis<CallGraph.Verte
     protected final SDG sdg;
 
     public SummaryArcAnalyzer(SDG sdg, CallGraph graph) {
-        super(graph);
+        super(graph, true);
         this.sdg = sdg;
     }
 
     @Override
     protected Map<SyntheticNode<CallableDeclaration<?>>, Set<FormalIONode>> compute(CallGraph.Vertex vertex, Set<CallGraph.Vertex> predecessors) {
-        saveDeclaration(vertex);
-        return initialValue(vertex);
+        var value = initialValue(vertex);
+        // Insert the arcs before the callers are computed, as they traverse them
+        saveDeclaration(vertex, value);
+        return value;
     }
 
     @Override
     protected Map<SyntheticNode<CallableDeclaration<?>>, Set<FormalIONode>> initialValue(CallGraph.Vertex vertex) {
-        var value = vertexDataMap.get(vertex);
-        if (value == null) {
-            value = new HashMap<>();
-            for (var formalOut : getFormalOutNodes(vertex.getDeclaration()))
-                value.put(formalOut, new HashSet<>());
-        }
-        value.replaceAll((key, oldValue) -> computeFormalIn(key));
+        Map<SyntheticNode<CallableDeclaration<?>>, Set<FormalIONode>> value = new HashMap<>();
+        for (var formalOut : getFormalOutNodes(vertex.getDeclaration()))
+            value.put(formalOut, computeFormalIn(formalOut));
         return value;
     }
 
+    @SuppressWarnings("unchecked")
     protected Set<SyntheticNode<CallableDeclaration<?>>> getFormalOutNodes(CallableDeclaration<?> declaration) {
-        Set<SyntheticNode<CallableDeclaration<?>>> set = sdg.vertexSet().stream()
-                .filter(FormalIONode.class::isInstance)
-                .map(FormalIONode.class::cast)
-                .filter(FormalIONode::isOutput)
-                .collect(Collectors.toSet());
-        sdg.vertexSet().stream()
-                .filter(OutputNode.class::isInstance)
-                .map(OutputNode.class::cast)
-                .filter(on -> on.getAstNode().equals(declaration))
-                .forEach(set::add);
+        Set<SyntheticNode<CallableDeclaration<?>>> set = new HashSet<>(sdg.getFormalOuts(declaration));
+        sdg.getOutputNode(declaration).ifPresent(n -> set.add((SyntheticNode<CallableDeclaration<?>>) n));
         return set;
     }
 
@@ -60,8 +52,7 @@ public class SummaryArcAnalyzer extends BackwardDataFlowAnalysis<CallGraph.Verte
                 .collect(Collectors.toSet());
     }
 
-    protected void saveDeclaration(CallGraph.Vertex vertex) {
-        var result = vertexDataMap.get(vertex);
+    protected void saveDeclaration(CallGraph.Vertex vertex, Map<SyntheticNode<CallableDeclaration<?>>, Set<FormalIONode>> result) {
         for (CallGraph.Edge<?> edge : graph.incomingEdgesOf(vertex)) {
             for (var entry : result.entrySet()) {
                 var actualOutOpt = getActualOut(edge, entry.getKey());
@@ -79,10 +70,7 @@ public class SummaryArcAnalyzer extends BackwardDataFlowAnalysis<CallGraph.Verte
     }
 
     protected Optional<ActualIONode> getActualIn(CallGraph.Edge<?> edge, FormalIONode formalIn) {
-        return sdg.vertexSet().stream()
-                .filter(ActualIONode.class::isInstance)
-                .map(ActualIONode.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return sdg.getActualIns((Node) edge.getCall()).stream()
                 .filter(n -> n.matchesFormalIO(formalIn))
                 .findAny();
     }
@@ -96,19 +84,12 @@ public class SummaryArcAnalyzer extends BackwardDataFlowAnalysis<CallGraph.Verte
     }
 
     protected ActualIONode getActualOut(CallGraph.Edge<?> edge, FormalIONode formalOut) {
-        return sdg.vertexSet().stream()
-                .filter(ActualIONode.class::isInstance)
-                .map(ActualIONode.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
+        return sdg.getActualOuts((Node) edge.getCall()).stream()
                 .filter(n -> n.matchesFormalIO(formalOut))
                 .findAny().orElse(null);
     }
 
     protected CallNode.Return getActualOut(CallGraph.Edge<?> edge) {
-        return sdg.vertexSet().stream()
-                .filter(CallNode.Return.class::isInstance)
-                .map(CallNode.Return.class::cast)
-                .filter(n -> n.getAstNode() == edge.getCall())
-                .findAny().orElse(null);
+        return sdg.getCallReturn((Node) edge.getCall()).orElse(null);
     }
 }
@@ -0,0 +1,133 @@
+package es.upv.mist.slicing.graphs.sdg;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.body.CallableDeclaration;
+import es.upv.mist.slicing.arcs.Arc;
+import es.upv.mist.slicing.graphs.CallGraph;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.SyntheticNode;
+import es.upv.mist.slicing.nodes.io.ActualIONode;
+import es.upv.mist.slicing.nodes.io.FormalIONode;
+import es.upv.mist.slicing.nodes.io.OutputNode;
+import es.upv.mist.slicing.slicing.ClassicSlicingAlgorithm;
+import es.upv.mist.slicing.slicing.SlicingAlgorithm;
+import es.upv.mist.slicing.utils.ASTUtils;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the summary arcs of an SDG with the worklist algorithm by Reps, Horwitz and Sagiv
+ * (<i>Speeding up slicing</i>), working directly on the intraprocedural arcs of the SDG.
+ * <br/>
+ * A path edge (<i>n</i>, <i>fo</i>) records that the node <i>n</i> reaches the formal-out <i>fo</i> of its
+ * declaration by traversing backwards the arcs that {@link ClassicSlicingAlgorithm#ignoreProcedure(Arc)}
+ * accepts. Each path edge is processed once. When a path edge reaches a formal-in, a summary arc is placed
+ * between the corresponding actual nodes of every call to that declaration, and the path edges that had
+ * already reached the actual-out are extended through it. Unlike {@link SummaryArcAnalyzer}, no procedure
+ * is traversed more than once, and each summary arc is discovered once.
+ * <br/>
+ * The traversal is only valid for slicing algorithms whose intraprocedural traversal is a plain
+ * reachability problem, which excludes the {@link es.upv.mist.slicing.slicing.ExceptionSensitiveSlicingAlgorithm
+ * exception-sensitive slicing algorithm}.
+ */
+public class WorklistSummaryArcAnalyzer {
+    protected final SDG sdg;
+    protected final CallGraph callGraph;
+    /** The arcs that should not be traversed inside a procedure. */
+    protected final Predicate<Arc> ignoreCondition;
+
+    /** The path edges found, grouped by their node. */
+    protected final Map<GraphNode<?>, Set<SyntheticNode<CallableDeclaration<?>>>> pathEdges = new HashMap<>();
+    /** The path edges that have been found but not yet processed. */
+    protected final Deque<PathEdge> workList = new ArrayDeque<>();
+    /** The calls to each declaration, obtained from the call graph. */
+    protected final Map<CallableDeclaration<?>, Set<Node>> callsToMap = ASTUtils.newIdentityHashMap();
+
+    protected boolean built = false;
+
+    public WorklistSummaryArcAnalyzer(SDG sdg, CallGraph callGraph) {
+        this.sdg = sdg;
+        this.callGraph = callGraph;
+        SlicingAlgorithm algorithm = sdg.createSlicingAlgorithm();
+        if (!(algorithm instanceof ClassicSlicingAlgorithm))
+            throw new IllegalArgumentException("The SDG's slicing algorithm must traverse procedures by reachability");
+        this.ignoreCondition = ((ClassicSlicingAlgorithm) algorithm)::ignoreProcedure;
+    }
+
+    /** Computes and inserts all the summary arcs in the SDG.
+     *  This method only performs the analysis on its first call. */
+    @SuppressWarnings("unchecked")
+    public void analyze() {
+        assert !built;
+        for (GraphNode<?> node : sdg.vertexSet())
+            if (isFormalOut(node))
+                addPathEdge(node, (SyntheticNode<CallableDeclaration<?>>) node);
+        while (!workList.isEmpty()) {
+            PathEdge pathEdge = workList.removeFirst();
+            if (pathEdge.node instanceof FormalIONode && ((FormalIONode) pathEdge.node).isInput())
+                summarize((FormalIONode) pathEdge.node, pathEdge.formalOut);
+            for (Arc arc : sdg.incomingEdgesOf(pathEdge.node))
+                if (!ignoreCondition.test(arc))
+                    addPathEdge(sdg.getEdgeSource(arc), pathEdge.formalOut);
+        }
+        built = true;
+    }
+
+    protected boolean isFormalOut(GraphNode<?> node) {
+        return (node instanceof FormalIONode && ((FormalIONode) node).isOutput()) || node instanceof OutputNode;
+    }
+
+    /** Registers a path edge and schedules it for processing, if it hadn't been found before. */
+    protected void addPathEdge(GraphNode<?> node, SyntheticNode<CallableDeclaration<?>> formalOut) {
+        if (pathEdges.computeIfAbsent(node, n -> new HashSet<>()).add(formalOut))
+            workList.addLast(new PathEdge(node, formalOut));
+    }
+
+    /** Connects the formal-in to the formal-out in every call to their declaration, with a summary arc. */
+    protected void summarize(FormalIONode formalIn, SyntheticNode<CallableDeclaration<?>> formalOut) {
+        for (Node call : callsTo(formalOut.getAstNode())) {
+            Optional<ActualIONode> actualIn = findActualIn(call, formalIn);
+            Optional<? extends SyntheticNode<?>> actualOut = findActualOut(call, formalOut);
+            if (actualIn.isEmpty() || actualOut.isEmpty() || sdg.containsEdge(actualIn.get(), actualOut.get()))
+                continue;
+            sdg.addSummaryArc(actualIn.get(), actualOut.get());
+            // Extend the path edges that had already reached the actual-out through the new arc
+            for (var reachedFormalOut : List.copyOf(pathEdges.getOrDefault(actualOut.get(), Collections.emptySet())))
+                addPathEdge(actualIn.get(), reachedFormalOut);
+        }
+    }
+
+    protected Set<Node> callsTo(CallableDeclaration<?> declaration) {
+        return callsToMap.computeIfAbsent(declaration, decl -> callGraph.callsTo(decl)
+                .collect(Collectors.toCollection(ASTUtils::newIdentityHashSet)));
+    }
+
+    protected Optional<ActualIONode> findActualIn(Node call, FormalIONode formalIn) {
+        return sdg.getActualIns(call).stream()
+                .filter(n -> n.matchesFormalIO(formalIn))
+                .findFirst();
+    }
+
+    protected Optional<? extends SyntheticNode<?>> findActualOut(Node call, SyntheticNode<CallableDeclaration<?>> formalOut) {
+        if (formalOut instanceof FormalIONode)
+            return sdg.getActualOuts(call).stream()
+                    .filter(n -> n.matchesFormalIO((FormalIONode) formalOut))
+                    .findFirst();
+        if (formalOut instanceof OutputNode)
+            return sdg.getCallReturn(call);
+        throw new IllegalArgumentException("invalid type");
+    }
+
+    /** A node that reaches a formal-out node of its declaration. */
+    protected static class PathEdge {
+        protected final GraphNode<?> node;
+        protected final SyntheticNode<CallableDeclaration<?>> formalOut;
+
+        protected PathEdge(GraphNode<?> node, SyntheticNode<CallableDeclaration<?>> formalOut) {
+            this.node = node;
+            this.formalOut = formalOut;
+        }
+    }
+}
@@ -18,8 +18,12 @@ import java.util.*;
  * @param <N> The type of the AST represented by this node.
  */
 public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
-    /** A unique id within the graph. */
-    protected final long id;
+    /** The helper that contains the id of this node. It is the fork that created the node until it is joined. */
+    protected IdHelper idHelper;
+    /** The id in the helper, unique among its nodes. It changes when the fork that contains it is joined. */
+    protected long id;
+    /** The hash code of this node, which doesn't change when its id does. */
+    protected final int hash;
     /** The textual representation of the node. */
     protected final String label;
     /** The JavaParser AST node represented by this node. */
@@ -31,22 +35,24 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
 
     /** Create a graph node, with id and variable actions generated automatically. */
     public GraphNode(String label, N astNode) {
-        this(IdHelper.getInstance().getNextId(), label, astNode);
+        this(IdHelper.getInstance(), label, astNode);
     }
 
     /** Create a graph node, with variable actions generated automatically. */
-    protected GraphNode(long id, String label, N astNode) {
-        this(id, label, astNode, new LinkedList<>());
+    protected GraphNode(IdHelper idHelper, String label, N astNode) {
+        this(idHelper, label, astNode, new LinkedList<>());
         extractVariables();
     }
 
     /** Create a graph node, with id generated automatically. */
     public GraphNode(String label, N astNode, List<VariableAction> variableActions) {
-        this(IdHelper.getInstance().getNextId(), label, astNode, variableActions);
+        this(IdHelper.getInstance(), label, astNode, variableActions);
     }
 
-    protected GraphNode(long id, String label, N astNode, List<VariableAction> variableActions) {
-        this.id = id;
+    protected GraphNode(IdHelper idHelper, String label, N astNode, List<VariableAction> variableActions) {
+        this.idHelper = idHelper;
+        this.id = idHelper.register(this);
+        this.hash = idHelper.hashOf(id);
         this.label = label;
         this.astNode = astNode;
         this.variableActions = variableActions;
@@ -57,11 +63,26 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
         new VariableVisitor().startVisit(this);
     }
 
-    /** A unique id in this graph. */
+    /** A unique id in this graph. If the node was created by a {@link IdHelper#fork() fork}, its id is only
+     *  known once the fork has been joined.
+     *  @throws IllegalStateException If the fork that created this node has not been joined yet. */
     public long getId() {
+        if (idHelper.isFork())
+            throw new IllegalStateException("The ids of a fork are not known until it is joined");
         return id;
     }
 
+    /** Moves this node to the parent of its fork, which is being joined, shifting its id by the given offset. */
+    void moveTo(IdHelper parent, long offset) {
+        idHelper = parent;
+        id += offset;
+    }
+
+    /** The helper that generated the id of this node. Ids are only unique among the nodes of the same root helper. */
+    public IdHelper getIdHelper() {
+        return idHelper;
+    }
+
     /** The AST node represented by this graph. */
     public N getAstNode() {
         return astNode;
@@ -95,6 +116,11 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
         return methodCalls.contains(call);
     }
 
+    /** The calls contained in this node, in the order in which they are executed. */
+    public List<Resolvable<? extends ResolvedMethodLikeDeclaration>> getMethodCalls() {
+        return Collections.unmodifiableList(methodCalls);
+    }
+
     /** Append or prepend the given set of actions to the actions of the given call. */
     public void addActionsForCall(Set<VariableAction.Movable> actions, Resolvable<? extends ResolvedMethodLikeDeclaration> call, boolean prepend) {
         for (int i = 0; i < variableActions.size(); i++) {
@@ -161,26 +187,36 @@ public class GraphNode<N extends Node> implements Comparable<GraphNode<?>> {
     public String toString() {
         return String.format("%s{id: %s, label: '%s', astNodeType: %s}",
                 getClass().getSimpleName(),
-                getId(),
+                idHelper.isFork() ? "?" : getId(),
                 getLabel(),
                 getAstNode().getClass().getSimpleName()
         );
     }
 
+    /** Two nodes are equal if their ids are equal and were generated by the same helper. */
     @Override
     public boolean equals(Object o) {
         if (this == o)
             return true;
-        return o instanceof GraphNode && Objects.equals(getId(), ((GraphNode<?>) o).getId());
+        return o instanceof GraphNode && idHelper == ((GraphNode<?>) o).idHelper && id == ((GraphNode<?>) o).id;
     }
 
+    /** Only depends on the id and fork with which the node was created, so that the iteration order of
+     *  hash-based collections of nodes is the same in every build of a graph. */
     @Override
     public int hashCode() {
-        return Objects.hash(getId());
+        return hash;
     }
 
+    /** Nodes are sorted by id, and the nodes of different root helpers in the order in which the helpers were created.
+     *  @throws IllegalStateException If the nodes were created by different forks and one of them has not been joined. */
     @Override
     public int compareTo(GraphNode<?> o) {
-        return Long.compare(id, o.id);
+        if (idHelper == o.idHelper)
+            return Long.compare(id, o.id);
+        IdHelper root = idHelper.getRoot(), otherRoot = o.idHelper.getRoot();
+        if (root != otherRoot)
+            return Long.compare(root.getSerial(), otherRoot.getSerial());
+        return Long.compare(getId(), o.getId());
     }
 }
@@ -1,21 +1,174 @@
 package es.upv.mist.slicing.nodes;
 
-/** A singleton class that provides unique ids for {@link GraphNode}s. */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Provides unique ids for {@link GraphNode}s, and a {@link SymbolTable} for the variables of their {@link VariableAction}s.
+ * Each {@link es.upv.mist.slicing.graphs.Graph Graph} has its own helper, whose ids and symbols are dense and start
+ * at 0, so that they can be used as array indices. A build session runs through {@link #call(Supplier)} or
+ * {@link #run(Runnable)}, and the nodes created by the thread that runs it use that helper; nodes can't be created
+ * outside a session.
+ * <br/>
+ * Ids are only unique within a helper, so each node keeps the helper that generated its id, and
+ * nodes from different helpers are never equal (see {@link GraphNode#equals(Object)}).
+ * <br/>
+ * The tasks of a parallel build use a {@link #fork() fork} of the session's helper each, which numbers its
+ * nodes from 0. When a fork is {@link #join() joined}, its nodes are renumbered with the next block of ids of
+ * its parent, so the ids don't depend on the order in which the tasks run, but on the order in which they are
+ * joined. The hash of a node is fixed when it is created (see {@link #hashOf(long)}), as it may already be
+ * stored in hash-based collections when its id changes.
+ */
 public class IdHelper {
     private static final int START_ID = 0;
-    private static final IdHelper INSTANCE = new IdHelper();
+    private static final ThreadLocal<IdHelper> CURRENT = new ThreadLocal<>();
+    private static final AtomicLong NEXT_SERIAL = new AtomicLong();
+
+    /** The order in which helpers are created, to sort the nodes of different helpers. */
+    private final long serial = NEXT_SERIAL.getAndIncrement();
+    /** The helper in which the nodes of this one are placed when it is joined, or null if this helper is not a fork. */
+    private final IdHelper parent;
+    /** A value that identifies this helper among the forks of its root, which only depends on the order in
+     *  which the forks were created. It is combined with the ids generated by this helper to hash its nodes. */
+    private final long key;
+    private final AtomicLong nextId = new AtomicLong(START_ID);
+    private final AtomicLong nextFork = new AtomicLong();
+    /** The nodes created by this fork, or by the forks joined into it, which must be renumbered when it is joined. */
+    private final List<GraphNode<?>> nodes;
+    private boolean joined = false;
+    /** The symbols of the variables of the actions of this helper's nodes. Forks use the table of their parent. */
+    private final SymbolTable symbolTable;
+
+    public IdHelper() {
+        this(null);
+    }
+
+    private IdHelper(IdHelper parent) {
+        this.parent = parent;
+        this.key = parent == null ? 0 : mix(parent.key + parent.nextFork.incrementAndGet());
+        this.nodes = parent == null ? null : new ArrayList<>();
+        this.symbolTable = parent == null ? new SymbolTable() : parent.symbolTable;
+    }
+
+    /** Generate the id of a node created with this helper. Forks keep the node to renumber it when they are joined.
+     *  @throws IllegalStateException If this helper has been joined, as its block of ids is already assigned. */
+    long register(GraphNode<?> node) {
+        if (nodes == null)
+            return nextId.getAndIncrement();
+        synchronized (this) {
+            if (joined)
+                throw new IllegalStateException("A joined helper can't generate more ids");
+            nodes.add(node);
+            return nextId.getAndIncrement();
+        }
+    }
 
-    private long nextId;
+    /** The hash code of the node with the given id, generated by this helper. Nodes created by different
+     *  forks of the same helper with the same id get different hash codes. */
+    int hashOf(long id) {
+        return Long.hashCode(mix(key ^ id));
+    }
+
+    /** Spreads the bits of a value (the finalizer of SplitMix64). */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /** Whether this helper is a fork, whose nodes will be placed in its parent once it has been joined. */
+    boolean isFork() {
+        return parent != null;
+    }
+
+    /** Create a helper whose nodes will be assigned a block of this helper's ids when it is joined. */
+    public IdHelper fork() {
+        return new IdHelper(this);
+    }
+
+    /** Renumber the nodes created by this fork with the next block of ids of its parent, to which they are
+     *  moved. A fork must be joined after it has generated all its ids, and before its parent is joined.
+     *  @throws IllegalStateException If this helper is not a fork or it has already been joined. */
+    public synchronized void join() {
+        if (parent == null)
+            throw new IllegalStateException("Only a fork can be joined");
+        if (joined)
+            throw new IllegalStateException("This fork has already been joined");
+        joined = true;
+        long offset = parent.nextId.getAndAdd(getIdCount());
+        for (GraphNode<?> node : nodes)
+            node.moveTo(parent, offset);
+        if (parent.nodes != null) {
+            synchronized (parent) {
+                parent.nodes.addAll(nodes);
+            }
+        }
+        nodes.clear();
+    }
+
+    /** The helper that contains the ids of this one: itself or the root of the helper it was forked from. */
+    public IdHelper getRoot() {
+        return parent == null ? this : parent.getRoot();
+    }
+
+    /** The number of ids generated so far. All of them are in the range [0, count). */
+    public long getIdCount() {
+        return nextId.get() - START_ID;
+    }
+
+    /** The order in which this helper was created, with respect to other helpers. */
+    long getSerial() {
+        return serial;
+    }
+
+    /** The table in which the variables of the actions of this helper's nodes are interned. */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    /** Run the given action, generating the ids of the nodes it creates in this thread with this helper. */
+    public <T> T call(Supplier<T> action) {
+        IdHelper previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null)
+                CURRENT.remove();
+            else
+                CURRENT.set(previous);
+        }
+    }
+
+    /** Run the given action, generating the ids of the nodes it creates in this thread with this helper. */
+    public void run(Runnable action) {
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
 
-    private IdHelper() {
-        nextId = START_ID;
+    /** Whether the current thread is running an action of this helper or one of its forks. */
+    public boolean isCurrent() {
+        for (IdHelper helper = CURRENT.get(); helper != null; helper = helper.parent)
+            if (helper == this)
+                return true;
+        return false;
     }
 
-    synchronized long getNextId() {
-        return nextId++;
+    /** Whether the current thread is running an action of any helper. */
+    public static boolean inSession() {
+        return CURRENT.get() != null;
     }
 
-    static IdHelper getInstance() {
-        return INSTANCE;
+    /** The helper of the session run by the current thread.
+     *  @throws IllegalStateException If the current thread is not running an action of any helper. */
+    public static IdHelper getInstance() {
+        IdHelper helper = CURRENT.get();
+        if (helper == null)
+            throw new IllegalStateException("Nodes can only be created while a graph is built, see IdHelper#run(Runnable)");
+        return helper;
     }
 }
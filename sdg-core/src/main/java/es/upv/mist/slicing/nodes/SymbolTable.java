@@ -0,0 +1,27 @@
+package es.upv.mist.slicing.nodes;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns the variables of {@link VariableAction}s into dense symbols, which start at 0 and can be used as
+ * array indices. Each {@link IdHelper root helper} owns a table, which is shared by the actions of the nodes
+ * it creates, so symbols can only be compared among the actions of the same graph. <br/>
+ * When symbols are generated in parallel, their values depend on the order in which they are requested.
+ */
+public class SymbolTable {
+    /** The symbol of each variable, by its name. */
+    protected final Map<String, Integer> symbolMap = new ConcurrentHashMap<>();
+    protected final AtomicInteger nextSymbol = new AtomicInteger(0);
+
+    /** The symbol of the variable with the given name. Two variables have the same symbol if and only if their names are equal. */
+    public int getSymbol(String variable) {
+        return symbolMap.computeIfAbsent(variable, v -> nextSymbol.getAndIncrement());
+    }
+
+    /** The number of symbols generated so far. All of them are in the range [0, size). */
+    public int size() {
+        return nextSymbol.get();
+    }
+}
@@ -1,5 +1,6 @@
 package es.upv.mist.slicing.nodes;
 
+import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.expr.Expression;
 import com.github.javaparser.ast.expr.NameExpr;
 import com.github.javaparser.resolution.Resolvable;
@@ -9,18 +10,28 @@ import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.arcs.pdg.DataDependencyArc;
 import es.upv.mist.slicing.graphs.Graph;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.AnalysisContext;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /** An action upon a variable (e.g. usage, definition, declaration) */
 public abstract class VariableAction {
-    protected static final String VARIABLE_PATTERN = "^([a-zA-Z][a-zA-Z0-9_]*|[_a-zA-Z][a-zA-Z0-9_]+)$";
+    protected static final Pattern VARIABLE_PATTERN = Pattern.compile("^([a-zA-Z][a-zA-Z0-9_]*|[_a-zA-Z][a-zA-Z0-9_]+)$");
 
     protected final Expression variable;
     protected final GraphNode<?> graphNode;
+    /** The name of the variable, as printed. */
+    protected final String name;
+    /** The table of the graph node's helper, in which the variable is interned. */
+    protected final SymbolTable symbolTable;
+    /** The symbol of the variable in {@link #symbolTable}. Actions upon equal variables have the same symbol. */
+    protected final int symbol;
+    protected final boolean synthetic;
 
     protected boolean optional = false;
     protected ResolvedValueDeclaration resolvedVariableCache;
@@ -29,16 +40,30 @@ public abstract class VariableAction {
         assert variable.isNameExpr() || variable.isFieldAccessExpr();
         this.variable = variable;
         this.graphNode = graphNode;
+        this.name = variable.toString();
+        this.symbolTable = graphNode.getIdHelper().getSymbolTable();
+        this.symbol = symbolTable.getSymbol(name);
+        this.synthetic = !VARIABLE_PATTERN.matcher(name).matches();
     }
 
     /** Whether this action is performed upon an invented variable,
      * introduced by this library (e.g. the active exception or the returned value). */
     public boolean isSynthetic() {
-        return !getVariable().matches(VARIABLE_PATTERN);
+        return synthetic;
     }
 
     public String getVariable() {
-        return variable.toString();
+        return name;
+    }
+
+    /** The symbol that identifies the variable of this action in its {@link #getSymbolTable() table}. */
+    public int getSymbol() {
+        return symbol;
+    }
+
+    /** The table in which the variable of this action is interned, shared by all the actions of the same graph. */
+    public SymbolTable getSymbolTable() {
+        return symbolTable;
     }
 
     public Expression getVariableExpression() {
@@ -48,9 +73,9 @@ public abstract class VariableAction {
     public ResolvedValueDeclaration getResolvedValueDeclaration() {
         if (resolvedVariableCache == null) {
             if (variable.isFieldAccessExpr())
-                resolvedVariableCache = variable.asFieldAccessExpr().resolve();
+                resolvedVariableCache = ASTUtils.resolve(variable.asFieldAccessExpr());
             else if (variable.isNameExpr())
-                resolvedVariableCache = variable.asNameExpr().resolve();
+                resolvedVariableCache = ASTUtils.resolve(variable.asNameExpr());
         }
         return resolvedVariableCache;
     }
@@ -66,9 +91,11 @@ public abstract class VariableAction {
         return graphNode;
     }
 
-    /** Whether the argument is performed upon the same variable as this action. */
+    /** Whether the argument is performed upon the same variable as this action.
+     *  Both actions must belong to the same graph, as symbols are only comparable within the same table. */
     public boolean matches(VariableAction action) {
-        return Objects.equals(action.variable, variable);
+        assert action.symbolTable == symbolTable : "Symbols of different tables can't be compared";
+        return action.symbol == symbol;
     }
 
     public boolean isUsage() {
@@ -114,12 +141,13 @@ public abstract class VariableAction {
     public boolean equals(Object obj) {
         return obj instanceof VariableAction &&
                 obj.getClass().equals(getClass()) &&
-                variable.equals(((VariableAction) obj).variable);
+                symbolTable == ((VariableAction) obj).symbolTable &&
+                symbol == ((VariableAction) obj).symbol;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(getClass(), variable);
+        return 31 * getClass().hashCode() + symbol;
     }
 
     @Override
@@ -133,11 +161,19 @@ public abstract class VariableAction {
         protected final boolean enter;
 
         public CallMarker(Resolvable<? extends ResolvedMethodLikeDeclaration> call, GraphNode<?> graphNode, boolean enter) {
-            super(new NameExpr(String.format("-%s-%s-", enter ? "call" : "return", call.resolve().getSignature())), graphNode);
+            super(new NameExpr(String.format("-%s-%s-", enter ? "call" : "return", signatureOf(call))), graphNode);
             this.call = call;
             this.enter = enter;
         }
 
+        /** The signature of the declaration called. Obtaining it may resolve the types of its parameters. */
+        protected static String signatureOf(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
+            AnalysisContext context = call instanceof Node ? AnalysisContext.of((Node) call) : AnalysisContext.getDefault();
+            synchronized (context.getLock()) {
+                return ASTUtils.resolve(call).getSignature();
+            }
+        }
+
         /** The call this marker represents. */
         public Resolvable<? extends ResolvedMethodLikeDeclaration> getCall() {
             return call;
@@ -9,6 +9,7 @@ import com.github.javaparser.resolution.declarations.ResolvedMethodDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedMethodLikeDeclaration;
 import com.github.javaparser.resolution.declarations.ResolvedValueDeclaration;
 import com.github.javaparser.resolution.types.ResolvedType;
+import es.upv.mist.slicing.utils.ASTUtils;
 
 import java.util.Objects;
 
@@ -39,7 +40,7 @@ public class ActualIONode extends IONode<Node> {
 
     protected BodyDeclaration<?> resolvedASTNode() {
         @SuppressWarnings("unchecked")
-        ResolvedMethodLikeDeclaration declaration = ((Resolvable<? extends ResolvedMethodLikeDeclaration>) astNode).resolve();
+        ResolvedMethodLikeDeclaration declaration = ASTUtils.resolve((Resolvable<? extends ResolvedMethodLikeDeclaration>) astNode);
         if (declaration instanceof ResolvedConstructorDeclaration)
             return ((ResolvedConstructorDeclaration) declaration).toAst().orElse(null);
         else if (declaration instanceof ResolvedMethodDeclaration)
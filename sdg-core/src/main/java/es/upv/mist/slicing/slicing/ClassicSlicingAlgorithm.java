@@ -4,11 +4,9 @@ import es.upv.mist.slicing.arcs.Arc;
 import es.upv.mist.slicing.arcs.sdg.InterproceduralArc;
 import es.upv.mist.slicing.graphs.Graph;
 import es.upv.mist.slicing.nodes.GraphNode;
-import es.upv.mist.slicing.utils.Utils;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.function.Predicate;
 
 /** The classic slicing algorithm: traverse all arcs backwards except interprocedural output arcs until
@@ -55,27 +53,21 @@ public class ClassicSlicingAlgorithm implements SlicingAlgorithm {
     /** A single pass: the edges are traversed until no new node can be added. Reached nodes
      *  are stored in the first parameter, and arcs that match the second are ignored. */
     protected void pass(Slice slice, Predicate<Arc> ignoreCondition) {
-        // `toVisit` behaves like a set and using iterable we can use it as a queue
-        // More info: https://stackoverflow.com/a/2319126
-        LinkedHashSet<GraphNode<?>> toVisit = new LinkedHashSet<>(slice.getGraphNodes());
-        Set<GraphNode<?>> visited = new HashSet<>();
-
-        while (!toVisit.isEmpty()) {
-            GraphNode<?> node = Utils.setPop(toVisit);
-            // Avoid duplicate traversal
-            if (visited.contains(node))
-                continue;
-            visited.add(node);
+        // The nodes already in the slice are visited first. The slice records which nodes have been
+        // reached, so each node is queued once, and the queue only grows with the nodes actually reached
+        Deque<GraphNode<?>> queue = new ArrayDeque<>(slice.getGraphNodeList());
+        while (!queue.isEmpty()) {
+            GraphNode<?> node = queue.poll();
             // Traverse all edges backwards
             for (Arc arc : graph.incomingEdgesOf(node)) {
                 if (ignoreCondition.test(arc))
                     continue;
                 GraphNode<?> source = graph.getEdgeSource(arc);
-                if (!visited.contains(source))
-                    toVisit.add(source);
+                if (!slice.contains(source)) {
+                    slice.add(source);
+                    queue.add(source);
+                }
             }
         }
-
-        visited.forEach(slice::add);
     }
 }
@@ -11,7 +11,6 @@ import es.upv.mist.slicing.utils.Utils;
 
 import java.util.*;
 import java.util.function.Predicate;
-import java.util.stream.Stream;
 
 /**
  * An exception-sensitive slicing algorithm, which follows these rules:
@@ -41,6 +40,8 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     protected final Set<Arc> traversedArcSet = new HashSet<>();
     /** Similar to {@link #traversedArcSet} */
     protected final Map<GraphNode<?>, Set<Arc>> traversedArcMap = new HashMap<>();
+    /** The number of arcs in {@link #traversedArcSet} that leave each node, by kind. */
+    protected final Map<GraphNode<?>, ReachedCounter> reachedMap = new HashMap<>();
 
     public ExceptionSensitiveSlicingAlgorithm(ESSDG graph) {
         this.graph = Objects.requireNonNull(graph);
@@ -115,7 +116,7 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
     protected boolean ppdgIgnore(Arc arc) {
         GraphNode<?> target = graph.getEdgeTarget(arc);
         return arc.isUnconditionalControlDependencyArc() &&
-                reachedStream(target).allMatch(Arc::isUnconditionalControlDependencyArc) &&
+                reachedCounter(target).onlyUnconditionalControl() &&
                 !target.equals(slicingCriterion);
     }
 
@@ -134,8 +135,9 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
      */
     protected boolean traverseArc(Arc arc, Slice slice) {
         traversedArcMap.get(graph.getEdgeTarget(arc)).add(arc);
-        traversedArcSet.add(arc);
         GraphNode<?> source = graph.getEdgeSource(arc);
+        if (traversedArcSet.add(arc))
+            reachedMap.computeIfAbsent(source, n -> new ReachedCounter()).add(arc);
         if (!hasOnlyBeenReachedBy(source, CC1.class) && !hasOnlyBeenReachedBy(source, CC2.class)) {
             if (!slice.contains(source))
                 slice.add(source);
@@ -145,13 +147,48 @@ public class ExceptionSensitiveSlicingAlgorithm implements SlicingAlgorithm {
         return false;
     }
 
-    /** Check if a node only has been reached by arcs of a given class. */
+    /** Check if a node only has been reached by arcs of a given class, which must be
+     *  {@link CC1}, {@link CC2} or {@link ConditionalControlDependencyArc}. */
     protected boolean hasOnlyBeenReachedBy(GraphNode<?> node, Class<? extends Arc> type) {
-        return reachedStream(node).count() > 0 && reachedStream(node).allMatch(type::isInstance);
+        ReachedCounter counter = reachedCounter(node);
+        if (counter.total == 0)
+            return false;
+        if (type == CC1.class)
+            return counter.cc1 == counter.total;
+        if (type == CC2.class)
+            return counter.cc2 == counter.total;
+        if (type == ConditionalControlDependencyArc.class)
+            return counter.cc1 + counter.cc2 == counter.total;
+        throw new IllegalArgumentException("Arcs of type " + type.getSimpleName() + " are not counted");
+    }
+
+    /** Obtain the counter of the arcs that have reached the given node. */
+    protected ReachedCounter reachedCounter(GraphNode<?> node) {
+        return reachedMap.getOrDefault(node, ReachedCounter.EMPTY);
     }
 
-    /** Obtain a stream of arcs that have reached the given node. */
-    protected Stream<Arc> reachedStream(GraphNode<?> node) {
-        return traversedArcSet.stream().filter(arc -> graph.getEdgeSource(arc).equals(node));
+    /** The number of traversed arcs that have reached a node, by kind. */
+    protected static class ReachedCounter {
+        protected static final ReachedCounter EMPTY = new ReachedCounter();
+
+        protected int total;
+        protected int unconditionalControl;
+        protected int cc1;
+        protected int cc2;
+
+        protected void add(Arc arc) {
+            total++;
+            if (arc instanceof CC1)
+                cc1++;
+            else if (arc instanceof CC2)
+                cc2++;
+            else if (arc.isUnconditionalControlDependencyArc())
+                unconditionalControl++;
+        }
+
+        /** Whether all the arcs (if any) are unconditional control dependencies. */
+        protected boolean onlyUnconditionalControl() {
+            return unconditionalControl == total;
+        }
     }
 }
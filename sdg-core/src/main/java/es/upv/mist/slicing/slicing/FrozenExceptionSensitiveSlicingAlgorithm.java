@@ -0,0 +1,156 @@
+package es.upv.mist.slicing.slicing;
+
+import es.upv.mist.slicing.graphs.exceptionsensitive.FrozenESSDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
+import es.upv.mist.slicing.nodes.GraphNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/** The {@link ExceptionSensitiveSlicingAlgorithm exception-sensitive slicing algorithm}, that runs on a
+ *  {@link FrozenESSDG}. It follows the same rules, but each arc is represented by its identity, and
+ *  the arcs that have reached each node are counted in arrays instead of maps. */
+public class FrozenExceptionSensitiveSlicingAlgorithm extends FrozenSlicingAlgorithm {
+    protected final FrozenESSDG essdg;
+
+    /** The identities of the arcs that have been traversed. */
+    protected BitSet traversedArcs;
+    /** The number of traversed arcs whose target is each node. */
+    protected int[] traversedCount;
+    /** The number of traversed arcs whose source is each node. */
+    protected int[] reachedTotal;
+    /** The number of traversed unconditional control dependency arcs whose source is each node. */
+    protected int[] reachedControl;
+    /** The number of traversed CC1 arcs whose source is each node. */
+    protected int[] reachedCC1;
+    /** The number of traversed CC2 arcs whose source is each node. */
+    protected int[] reachedCC2;
+
+    public FrozenExceptionSensitiveSlicingAlgorithm(FrozenESSDG graph) {
+        super(graph);
+        this.essdg = graph;
+    }
+
+    @Override
+    public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
+        int criterion = indexOf(slicingCriterion);
+        BitSet reached = start(criterion);
+        pass(reached, criterion, PROCEDURE);
+        return toSlice(reached, criterion);
+    }
+
+    @Override
+    public Slice traverse(GraphNode<?> slicingCriterion) {
+        int criterion = indexOf(slicingCriterion);
+        BitSet reached = start(criterion);
+        pass(reached, criterion, PASS_1);
+        pass(reached, criterion, PASS_2);
+        return toSlice(reached, criterion);
+    }
+
+    /** Obtain the slices of several criteria, in the same order. The state of the traversal
+     *  depends on the criterion, so each criterion is traversed separately. */
+    @Override
+    public List<Slice> traverseAll(List<GraphNode<?>> slicingCriteria) {
+        List<Slice> slices = new ArrayList<>(slicingCriteria.size());
+        for (GraphNode<?> slicingCriterion : slicingCriteria)
+            slices.add(traverse(slicingCriterion));
+        return slices;
+    }
+
+    /** Reset the state of the traversal, and create the set of reached nodes, which contains the criterion. */
+    protected BitSet start(int criterion) {
+        int nodes = graph.getNodeCount();
+        traversedArcs = new BitSet(essdg.getArcCount());
+        traversedCount = new int[nodes];
+        reachedTotal = new int[nodes];
+        reachedControl = new int[nodes];
+        reachedCC1 = new int[nodes];
+        reachedCC2 = new int[nodes];
+        BitSet reached = new BitSet(nodes);
+        reached.set(criterion);
+        return reached;
+    }
+
+    /** Perform a round of traversal, until no new nodes can be added to the slice. Then, apply rule 5.
+     *  @see ExceptionSensitiveSlicingAlgorithm#pass(Slice, java.util.Set, java.util.function.Predicate) */
+    @Override
+    protected void pass(BitSet reached, int criterion, int pass) {
+        BitSet pending = (BitSet) reached.clone();
+        BitSet cc1s = new BitSet(essdg.getArcCount());
+        for (int node = pending.nextSetBit(0); node >= 0; node = pending.nextSetBit(0)) {
+            pending.clear(node);
+            for (int arc = graph.incomingStart(node), end = graph.incomingEnd(node); arc < end; arc++) {
+                int identity = essdg.getIdentity(arc);
+                if (graph.getKind(arc) == FrozenSDG.CC1)
+                    cc1s.set(identity);
+                if (!traversedArcs.get(identity) && !ignore(arc, node, criterion, pass) && traverseArc(arc, reached))
+                    pending.set(graph.getSource(arc));
+            }
+        }
+        // Consider transitivity when there are no more arcs to traverse.
+        cc1s.andNot(traversedArcs);
+        for (int arc = cc1s.nextSetBit(0); arc >= 0; arc = cc1s.nextSetBit(0)) {
+            cc1s.clear(arc);
+            // If the target of the arc has been reached, but only by CC1, traverse the arc
+            if (hasOnlyBeenReachedBy(essdg.getTarget(arc), reachedCC1)) {
+                traverseArc(arc, reached);
+                // Find the transitive CC1 edges and add them to the work-list
+                int source = graph.getSource(arc);
+                for (int a = graph.incomingStart(source), end = graph.incomingEnd(source); a < end; a++)
+                    if (graph.getKind(a) == FrozenSDG.CC1)
+                        cc1s.set(essdg.getIdentity(a));
+            }
+        }
+    }
+
+    /** Applies rules 1 (or only intraprocedural arcs, if slicing a procedure), 2 and 4 of the algorithm. */
+    @Override
+    protected boolean ignore(int arc, int target, int criterion, int pass) {
+        byte kind = graph.getKind(arc);
+        if (pass == PROCEDURE)
+            return FrozenSDG.isInterprocedural(kind);
+        if (pass == PASS_1 && FrozenSDG.isInterproceduralOutput(kind))
+            return true;
+        if (pass == PASS_2 && FrozenSDG.isInterproceduralInput(kind))
+            return true;
+        boolean unconditionalControl = kind == FrozenSDG.CONTROL || kind == FrozenSDG.CONTROL_PPDG;
+        // Rule 2
+        if (unconditionalControl && reachedControl[target] == reachedTotal[target] && target != criterion)
+            return true;
+        // Rule 4
+        if (kind == FrozenSDG.CONTROL_PPDG)
+            return false;
+        return reachedTotal[target] != 0 && reachedCC1[target] + reachedCC2[target] == reachedTotal[target];
+    }
+
+    /** Registers the arc as traversed, and if allowed by rule 3 of the algorithm, includes its source in the slice.
+     *  @return If the source node should be added to the work-list. */
+    protected boolean traverseArc(int arc, BitSet reached) {
+        int identity = essdg.getIdentity(arc);
+        int source = graph.getSource(arc);
+        if (!traversedArcs.get(identity)) {
+            traversedArcs.set(identity);
+            traversedCount[essdg.getTarget(arc)]++;
+            reachedTotal[source]++;
+            byte kind = graph.getKind(arc);
+            if (kind == FrozenSDG.CC1)
+                reachedCC1[source]++;
+            else if (kind == FrozenSDG.CC2)
+                reachedCC2[source]++;
+            else if (kind == FrozenSDG.CONTROL || kind == FrozenSDG.CONTROL_PPDG)
+                reachedControl[source]++;
+        }
+        if (!hasOnlyBeenReachedBy(source, reachedCC1) && !hasOnlyBeenReachedBy(source, reachedCC2)) {
+            reached.set(source);
+            return traversedCount[source] != graph.incomingEnd(source) - graph.incomingStart(source);
+        }
+        return false;
+    }
+
+    /** Whether the node has been reached, and only by the arcs counted in the given array. */
+    protected boolean hasOnlyBeenReachedBy(int node, int[] reachedByKind) {
+        return reachedTotal[node] != 0 && reachedByKind[node] == reachedTotal[node];
+    }
+}
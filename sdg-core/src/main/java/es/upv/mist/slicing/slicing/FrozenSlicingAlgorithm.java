@@ -0,0 +1,175 @@
+package es.upv.mist.slicing.slicing;
+
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
+import es.upv.mist.slicing.nodes.GraphNode;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/** The classic slicing algorithm, with the pseudo-predicate rule of {@link PseudoPredicateSlicingAlgorithm},
+ *  that runs on a {@link FrozenSDG}. It obtains the same slices as those algorithms on the original graph.
+ *  @see ClassicSlicingAlgorithm */
+public class FrozenSlicingAlgorithm implements SlicingAlgorithm {
+    protected static final int PASS_1 = 1;
+    protected static final int PASS_2 = 2;
+    protected static final int PROCEDURE = 3;
+
+    protected final FrozenSDG graph;
+
+    public FrozenSlicingAlgorithm(FrozenSDG graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public Slice traverseProcedure(GraphNode<?> slicingCriterion) {
+        int criterion = indexOf(slicingCriterion);
+        BitSet reached = new BitSet(graph.getNodeCount());
+        reached.set(criterion);
+        pass(reached, criterion, PROCEDURE);
+        return toSlice(reached, criterion);
+    }
+
+    @Override
+    public Slice traverse(GraphNode<?> slicingCriterion) {
+        int criterion = indexOf(slicingCriterion);
+        BitSet reached = new BitSet(graph.getNodeCount());
+        reached.set(criterion);
+        pass(reached, criterion, PASS_1);
+        pass(reached, criterion, PASS_2);
+        return toSlice(reached, criterion);
+    }
+
+    /** Obtain the slices of several criteria, in the same order, as {@link #traverse(GraphNode)} would.
+     *  Up to 64 criteria are traversed at once: each node keeps a mask with a bit per criterion that
+     *  reaches it, and the new bits of a node are propagated through its incoming arcs together. */
+    public List<Slice> traverseAll(List<GraphNode<?>> slicingCriteria) {
+        List<Slice> slices = new ArrayList<>(slicingCriteria.size());
+        for (int from = 0; from < slicingCriteria.size(); from += Long.SIZE) {
+            List<GraphNode<?>> batch = slicingCriteria.subList(from, Math.min(from + Long.SIZE, slicingCriteria.size()));
+            int[] criteria = batch.stream().mapToInt(this::indexOf).toArray();
+            long[] masks = new long[graph.getNodeCount()];
+            long[] criterionMasks = new long[graph.getNodeCount()];
+            for (int bit = 0; bit < criteria.length; bit++)
+                criterionMasks[criteria[bit]] |= 1L << bit;
+            System.arraycopy(criterionMasks, 0, masks, 0, masks.length);
+            pass(masks, criterionMasks, PASS_1);
+            pass(masks, criterionMasks, PASS_2);
+            slices.addAll(toSlices(masks, criteria));
+        }
+        return slices;
+    }
+
+    protected int indexOf(GraphNode<?> node) {
+        int index = graph.indexOf(node);
+        if (index < 0)
+            throw new IllegalArgumentException("The slicing criterion is not part of the graph");
+        return index;
+    }
+
+    /** Whether the arc at the given position, which reaches the given node, should be ignored in the given pass. */
+    protected boolean ignore(int arc, int target, int criterion, int pass) {
+        byte kind = graph.getKind(arc);
+        if (pass == PASS_1 && FrozenSDG.isInterproceduralOutput(kind))
+            return true;
+        if (pass == PASS_2 && FrozenSDG.isInterproceduralInput(kind))
+            return true;
+        if (pass == PROCEDURE && FrozenSDG.isInterprocedural(kind))
+            return true;
+        return graph.isPseudoPredicate(target) && FrozenSDG.isControlDependency(kind) && target != criterion;
+    }
+
+    /** A single pass: the arcs are traversed backwards from the nodes reached so far, until no new node
+     *  can be added. Reached nodes are marked in the first parameter. */
+    protected void pass(BitSet reached, int criterion, int pass) {
+        int[] queue = new int[graph.getNodeCount()];
+        int head = 0, tail = 0;
+        for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1))
+            queue[tail++] = i;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int arc = graph.incomingStart(node), end = graph.incomingEnd(node); arc < end; arc++) {
+                int source = graph.getSource(arc);
+                if (!reached.get(source) && !ignore(arc, node, criterion, pass)) {
+                    reached.set(source);
+                    queue[tail++] = source;
+                }
+            }
+        }
+    }
+
+    /** A single pass for a batch of criteria. The first parameter contains the mask of the criteria that reach
+     *  each node, and the second one the mask of the criteria located at each node. The arcs are traversed
+     *  backwards from the nodes reached so far, propagating only the bits that are new to each node. */
+    protected void pass(long[] masks, long[] criterionMasks, int pass) {
+        long[] pending = masks.clone();
+        // Each node is at most once in the queue, as it is only added when it had no pending bits
+        int[] queue = new int[graph.getNodeCount()];
+        int head = 0, size = 0;
+        for (int i = 0; i < pending.length; i++)
+            if (pending[i] != 0)
+                queue[size++] = i;
+        while (size > 0) {
+            int node = queue[head];
+            head = (head + 1) % queue.length;
+            size--;
+            long bits = pending[node];
+            pending[node] = 0;
+            for (int arc = graph.incomingStart(node), end = graph.incomingEnd(node); arc < end; arc++) {
+                int source = graph.getSource(arc);
+                long newBits = bits & allowed(arc, node, criterionMasks[node], pass) & ~masks[source];
+                if (newBits == 0)
+                    continue;
+                masks[source] |= newBits;
+                if (pending[source] == 0) {
+                    queue[(head + size) % queue.length] = source;
+                    size++;
+                }
+                pending[source] |= newBits;
+            }
+        }
+    }
+
+    /** The mask of the criteria that may traverse the arc at the given position, which reaches the given node,
+     *  in the given pass. It is the bit-parallel version of {@link #ignore(int, int, int, int)}. */
+    protected long allowed(int arc, int target, long targetCriteria, int pass) {
+        byte kind = graph.getKind(arc);
+        if (pass == PASS_1 && FrozenSDG.isInterproceduralOutput(kind))
+            return 0;
+        if (pass == PASS_2 && FrozenSDG.isInterproceduralInput(kind))
+            return 0;
+        if (pass == PROCEDURE && FrozenSDG.isInterprocedural(kind))
+            return 0;
+        if (graph.isPseudoPredicate(target) && FrozenSDG.isControlDependency(kind))
+            return targetCriteria;
+        return -1L;
+    }
+
+    /** Converts the masks of a batch to one slice per criterion, each of which starts with its criterion. */
+    protected List<Slice> toSlices(long[] masks, int[] criteria) {
+        List<Slice> slices = new ArrayList<>(criteria.length);
+        for (int criterion : criteria) {
+            Slice slice = new Slice();
+            slice.add(graph.getNode(criterion));
+            slices.add(slice);
+        }
+        for (int i = 0; i < masks.length; i++) {
+            for (long bits = masks[i]; bits != 0; bits &= bits - 1) {
+                int bit = Long.numberOfTrailingZeros(bits);
+                if (criteria[bit] != i)
+                    slices.get(bit).add(graph.getNode(i));
+            }
+        }
+        return slices;
+    }
+
+    /** Converts the reached nodes to a slice, which starts with the slicing criterion. */
+    protected Slice toSlice(BitSet reached, int criterion) {
+        Slice slice = new Slice();
+        slice.add(graph.getNode(criterion));
+        for (int i = reached.nextSetBit(0); i >= 0; i = reached.nextSetBit(i + 1))
+            if (i != criterion)
+                slice.add(graph.getNode(i));
+        return slice;
+    }
+}
@@ -4,9 +4,11 @@ import com.github.javaparser.Position;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.CallableDeclaration;
 import com.github.javaparser.ast.stmt.Statement;
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
 import es.upv.mist.slicing.graphs.sdg.SDG;
 import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.utils.Logger;
@@ -55,6 +57,24 @@ public class LineNumberCriterion extends SlicingCriterion {
         return optCu.get().findFirst(Statement.class, this::matchesLine).flatMap(graph::findNodeByASTNode);
     }
 
+    @Override
+    public Optional<GraphNode<?>> findNode(FrozenSDG graph) {
+        Optional<CompilationUnit> optCu = findCompilationUnit(graph.getCompilationUnits());
+        if (optCu.isEmpty())
+            return Optional.empty();
+        return optCu.get().findFirst(Statement.class, this::matchesLine).flatMap(graph::findNodeByASTNode);
+    }
+
+    @Override
+    public Optional<CallableDeclaration<?>> findDeclaration(NodeList<CompilationUnit> cus) {
+        Optional<CompilationUnit> optCu = findCompilationUnit(cus);
+        if (optCu.isEmpty())
+            return Optional.empty();
+        return optCu.get().findFirst(Statement.class, this::matchesLine)
+                .flatMap(stmt -> stmt.findAncestor(CallableDeclaration.class))
+                .map(decl -> (CallableDeclaration<?>) decl);
+    }
+
     /** Locates the compilation unit that corresponds to this criterion's file. */
     protected Optional<CompilationUnit> findCompilationUnit(NodeList<CompilationUnit> cus) {
         return cus.getFirst();
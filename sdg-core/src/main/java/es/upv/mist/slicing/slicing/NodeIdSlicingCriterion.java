@@ -2,6 +2,7 @@ package es.upv.mist.slicing.slicing;
 
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
 import es.upv.mist.slicing.graphs.sdg.SDG;
 import es.upv.mist.slicing.nodes.GraphNode;
 
@@ -30,4 +31,9 @@ public class NodeIdSlicingCriterion extends SlicingCriterion {
     public Optional<GraphNode<?>> findNode(SDG graph) {
         return graph.findNodeById(id);
     }
+
+    @Override
+    public Optional<GraphNode<?>> findNode(FrozenSDG graph) {
+        return graph.findNodeById(id);
+    }
 }
@@ -5,6 +5,7 @@ import com.github.javaparser.ast.Node;
 import com.github.javaparser.ast.NodeList;
 import com.github.javaparser.ast.visitor.CloneVisitor;
 import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.IdHelper;
 import es.upv.mist.slicing.utils.ASTUtils;
 import es.upv.mist.slicing.utils.NodeHashSet;
 
@@ -12,17 +13,28 @@ import java.util.*;
 
 /** The representation of a slice, or a subset of a graph's nodes.
  *  A slice can be obtained from any {@link Sliceable} object, and converted
- *  to code with {@link #toAst()}. */
+ *  to code with {@link #toAst()}. The nodes are indexed by their id, which should
+ *  be dense (see {@link IdHelper}), so all of them must have been generated by the same helper. */
 public class Slice {
-    /** Nodes contained in this slice, mapped by id. */
-    private final Map<Long, GraphNode<?>> map = new HashMap<>();
+    /** The root helper that generated the ids of the nodes of this slice, or null if it is empty. */
+    private IdHelper idHelper;
+    /** The ids of the nodes contained in this slice. */
+    private final BitSet ids = new BitSet();
+    /** Nodes contained in this slice, in the order in which they were added. */
+    private final List<GraphNode<?>> graphNodes = new ArrayList<>();
     /** The AST nodes contained in this slice. */
-    private final List<Node> nodes = new LinkedList<>();
+    private final Set<Node> nodes = ASTUtils.newIdentityHashSet();
 
-    /** Add a node to this slice. */
+    /** Add a node to this slice.
+     *  @throws IllegalArgumentException If the id of the node was generated by another helper than those in this slice. */
     public void add(GraphNode<?> node) {
-        assert !map.containsKey(node.getId());
-        map.put(node.getId(), node);
+        assert !contains(node);
+        if (idHelper == null)
+            idHelper = node.getIdHelper().getRoot();
+        else if (idHelper != node.getIdHelper().getRoot())
+            throw new IllegalArgumentException("The nodes of a slice must belong to the same graph");
+        ids.set(indexOf(node));
+        graphNodes.add(node);
         nodes.add(node.getAstNode());
     }
 
@@ -33,27 +45,41 @@ public class Slice {
 
     /** Whether the slice contains the given node. */
     public boolean contains(GraphNode<?> node) {
-        return map.containsKey(node.getId());
+        return idHelper == node.getIdHelper().getRoot() && ids.get(indexOf(node));
     }
 
     /** Whether the slice contains the given AST node. */
     public boolean contains(Node node) {
-        return nodes.stream().anyMatch(n -> n == node);
+        return nodes.contains(node);
+    }
+
+    /** The number of nodes in this slice. */
+    public int size() {
+        return graphNodes.size();
+    }
+
+    protected static int indexOf(GraphNode<?> node) {
+        return Math.toIntExact(node.getId());
     }
 
     @Override
     public int hashCode() {
-        return map.hashCode();
+        return ids.hashCode();
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof Slice && map.equals(((Slice) obj).map);
+        return obj instanceof Slice && idHelper == ((Slice) obj).idHelper && ids.equals(((Slice) obj).ids);
     }
 
     /** Obtain the nodes from this slice. */
     public Set<GraphNode<?>> getGraphNodes() {
-        return Set.copyOf(map.values());
+        return Set.copyOf(graphNodes);
+    }
+
+    /** Obtain the nodes from this slice, in the order in which they were added. */
+    public List<GraphNode<?>> getGraphNodeList() {
+        return Collections.unmodifiableList(graphNodes);
     }
 
     /** Organize all nodes pertaining to this slice in one or more CompilationUnits. CompilationUnits
@@ -62,7 +88,8 @@ public class Slice {
         Map<CompilationUnit, NodeHashSet<Node>> cuMap = ASTUtils.newIdentityHashMap();
         // Add each node to the corresponding bucket of the map
         // Nodes may not belong to a compilation unit (fictional nodes), and they are skipped for the slice.
-        for (Node node : nodes) {
+        for (GraphNode<?> graphNode : graphNodes) {
+            Node node = graphNode.getAstNode();
             Optional<CompilationUnit> cu = node.findCompilationUnit();
             if (cu.isEmpty()) continue;
             cuMap.computeIfAbsent(cu.get(), compilationUnit -> new NodeHashSet<>());
@@ -0,0 +1,215 @@
+package es.upv.mist.slicing.slicing;
+
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
+import es.upv.mist.slicing.nodes.GraphNode;
+
+import java.util.BitSet;
+import java.util.Optional;
+
+/**
+ * The precomputed slices of every node of a {@link FrozenSDG}, as obtained by {@link FrozenSlicingAlgorithm}.
+ * <br/>
+ * The slice of a node is the set of nodes that reach it in the first pass (which ignores interprocedural
+ * output arcs) and then, from those, in the second pass (which ignores interprocedural input arcs). As the
+ * second pass can be split among the nodes reached by the first one, this index computes two closures,
+ * each on the condensation of the graph into strongly connected components, solved in topological order:
+ * <ul>
+ *     <li>The nodes that reach each node in the second pass.</li>
+ *     <li>The slice of each node: the union of the second closure of the node, and the slices of the nodes
+ *     that reach it in the first pass.</li>
+ * </ul>
+ * The nodes of a component share their sets, which contain node indices. Each set is stored as a sorted array
+ * if it is small, or as a bit set otherwise, so that the index does not use a bit per node for each component.
+ * The arcs that the pseudo-predicate rule ignores are excluded from both closures, and the slice of a
+ * pseudo-predicate, which may traverse its own control dependencies, is assembled from the sets of its
+ * sources when it is requested.
+ */
+public class SliceIndex implements Sliceable {
+    protected static final int PASS_1 = 1;
+    protected static final int PASS_2 = 2;
+
+    protected final FrozenSDG graph;
+    /** The nodes that reach each node in the second pass. */
+    protected final IndexSet[] secondPass;
+    /** The slice of each node, except for the pseudo-predicates. */
+    protected final IndexSet[] slices;
+
+    /** Computes the slices of all the nodes of the given graph. */
+    public SliceIndex(FrozenSDG graph) {
+        this.graph = graph;
+        this.secondPass = closure(PASS_2, null);
+        this.slices = closure(PASS_1, secondPass);
+    }
+
+    @Override
+    public Slice slice(SlicingCriterion slicingCriterion) {
+        Optional<GraphNode<?>> optSlicingNode = slicingCriterion.findNode(graph);
+        if (optSlicingNode.isEmpty())
+            throw new IllegalArgumentException("Could not locate the slicing criterion in the SDG");
+        return getSlice(optSlicingNode.get());
+    }
+
+    /** Obtain the slice of the given node, which must be part of the graph. */
+    public Slice getSlice(GraphNode<?> slicingCriterion) {
+        int criterion = graph.indexOf(slicingCriterion);
+        if (criterion < 0)
+            throw new IllegalArgumentException("The slicing criterion is not part of the graph");
+        return toSlice(getSliceIndices(criterion), criterion);
+    }
+
+    /** The indices of the nodes in the slice of the node at the given index. */
+    protected BitSet getSliceIndices(int criterion) {
+        BitSet result = new BitSet(graph.getNodeCount());
+        if (!graph.isPseudoPredicate(criterion)) {
+            slices[criterion].addTo(result);
+            return result;
+        }
+        result.set(criterion);
+        for (int arc = graph.incomingStart(criterion), end = graph.incomingEnd(criterion); arc < end; arc++) {
+            byte kind = graph.getKind(arc);
+            int source = graph.getSource(arc);
+            // Output arcs are only traversed in the second pass
+            if (FrozenSDG.isInterproceduralOutput(kind))
+                secondPass[source].addTo(result);
+            else
+                slices[source].addTo(result);
+        }
+        return result;
+    }
+
+    /** Whether the arc at the given position, which reaches the given node, is traversed in the given pass.
+     *  The pseudo-predicate rule applies to every node, as if none of them was the slicing criterion. */
+    protected boolean traverses(int arc, int target, int pass) {
+        byte kind = graph.getKind(arc);
+        if (pass == PASS_1 && FrozenSDG.isInterproceduralOutput(kind))
+            return false;
+        if (pass == PASS_2 && FrozenSDG.isInterproceduralInput(kind))
+            return false;
+        return !graph.isPseudoPredicate(target) || !FrozenSDG.isControlDependency(kind);
+    }
+
+    /**
+     * Computes, for each node, the set of nodes that reach it through the arcs traversed in the given pass.
+     * The strongly connected components are found with Tarjan's algorithm, following the arcs backwards, which
+     * finishes each component after all the components that reach it; so their sets are already available.
+     * @param pass The pass that selects the arcs.
+     * @param base The set that each node contributes to the result, or null if it only contributes itself.
+     * @return An array with the set of each node, shared by all the nodes of a component.
+     */
+    protected IndexSet[] closure(int pass, IndexSet[] base) {
+        int n = graph.getNodeCount();
+        IndexSet[] result = new IndexSet[n];
+        int[] order = new int[n];
+        int[] lowLink = new int[n];
+        int[] nextArc = new int[n];
+        int[] stack = new int[n];
+        int[] callStack = new int[n];
+        BitSet onStack = new BitSet(n);
+        // The set of each component is assembled here, and then stored in its compact form
+        BitSet set = new BitSet(n);
+        int counter = 0, stackSize = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0)
+                continue;
+            int callSize = 0;
+            callStack[callSize++] = root;
+            order[root] = lowLink[root] = ++counter;
+            nextArc[root] = graph.incomingStart(root);
+            stack[stackSize++] = root;
+            onStack.set(root);
+            while (callSize > 0) {
+                int node = callStack[callSize - 1];
+                if (nextArc[node] < graph.incomingEnd(node)) {
+                    int arc = nextArc[node]++;
+                    if (!traverses(arc, node, pass))
+                        continue;
+                    int source = graph.getSource(arc);
+                    if (order[source] == 0) {
+                        order[source] = lowLink[source] = ++counter;
+                        nextArc[source] = graph.incomingStart(source);
+                        stack[stackSize++] = source;
+                        onStack.set(source);
+                        callStack[callSize++] = source;
+                    } else if (onStack.get(source)) {
+                        lowLink[node] = Math.min(lowLink[node], order[source]);
+                    }
+                    continue;
+                }
+                callSize--;
+                if (callSize > 0) {
+                    int caller = callStack[callSize - 1];
+                    lowLink[caller] = Math.min(lowLink[caller], lowLink[node]);
+                }
+                if (lowLink[node] != order[node])
+                    continue;
+                // The node is the root of a component, which occupies the top of the stack
+                int start = stackSize;
+                do {
+                    onStack.clear(stack[--start]);
+                } while (stack[start] != node);
+                for (int i = start; i < stackSize; i++) {
+                    int member = stack[i];
+                    if (base == null)
+                        set.set(member);
+                    else
+                        base[member].addTo(set);
+                }
+                for (int i = start; i < stackSize; i++) {
+                    int member = stack[i];
+                    for (int arc = graph.incomingStart(member), end = graph.incomingEnd(member); arc < end; arc++) {
+                        IndexSet sourceSet = result[graph.getSource(arc)];
+                        // Sources without a set are members of this component
+                        if (sourceSet != null && traverses(arc, member, pass))
+                            sourceSet.addTo(set);
+                    }
+                }
+                IndexSet indexSet = IndexSet.of(set);
+                set.clear();
+                for (int i = start; i < stackSize; i++)
+                    result[stack[i]] = indexSet;
+                stackSize = start;
+            }
+        }
+        return result;
+    }
+
+    /** Converts a set of node indices to a slice, which starts with the slicing criterion. */
+    protected Slice toSlice(BitSet indices, int criterion) {
+        Slice slice = new Slice();
+        slice.add(graph.getNode(criterion));
+        for (int i = indices.nextSetBit(0); i >= 0; i = indices.nextSetBit(i + 1))
+            if (i != criterion)
+                slice.add(graph.getNode(i));
+        return slice;
+    }
+
+    /** An immutable set of node indices, which is stored as a sorted array if that takes less memory than a bit set. */
+    protected static class IndexSet {
+        /** The indices, in ascending order, or null if they are stored in {@link #bits}. */
+        protected final int[] indices;
+        /** The indices, or null if they are stored in {@link #indices}. */
+        protected final BitSet bits;
+
+        protected IndexSet(int[] indices, BitSet bits) {
+            this.indices = indices;
+            this.bits = bits;
+        }
+
+        /** Copies the given set into the smallest representation. An array uses 32 bits per index, and a
+         *  bit set one bit per index up to the greatest one. */
+        protected static IndexSet of(BitSet set) {
+            if ((long) Integer.SIZE * set.cardinality() < set.length())
+                return new IndexSet(set.stream().toArray(), null);
+            return new IndexSet(null, BitSet.valueOf(set.toLongArray()));
+        }
+
+        /** Adds the indices of this set to the given one. */
+        protected void addTo(BitSet target) {
+            if (bits != null)
+                target.or(bits);
+            else
+                for (int index : indices)
+                    target.set(index);
+        }
+    }
+}
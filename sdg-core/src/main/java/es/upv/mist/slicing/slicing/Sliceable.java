@@ -1,6 +1,16 @@
 package es.upv.mist.slicing.slicing;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface Sliceable {
     /** Extract a subset of nodes that affect the given slicing criterion. */
     Slice slice(SlicingCriterion sc);
+
+    /** Extract one slice per slicing criterion, in the same order as the given criteria.
+     *  Implementations may share the traversal of the graph among several criteria. */
+    default List<Slice> sliceAll(Collection<? extends SlicingCriterion> criteria) {
+        return criteria.stream().map(this::slice).collect(Collectors.toList());
+    }
 }
@@ -2,6 +2,8 @@ package es.upv.mist.slicing.slicing;
 
 import es.upv.mist.slicing.nodes.GraphNode;
 
+/** An algorithm that traverses a graph to obtain a slice. Implementations may keep the state of a traversal,
+ *  so an instance should not be used by multiple threads at the same time. */
 public interface SlicingAlgorithm {
     /** Obtain the nodes reached by this algorithm in a classic 2-pass interprocedural slice. */
     Slice traverse(GraphNode<?> slicingCriterion);
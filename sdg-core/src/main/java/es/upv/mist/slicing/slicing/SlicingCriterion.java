@@ -1,7 +1,11 @@
 package es.upv.mist.slicing.slicing;
 
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.CallableDeclaration;
 import es.upv.mist.slicing.graphs.cfg.CFG;
 import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
 import es.upv.mist.slicing.graphs.sdg.SDG;
 import es.upv.mist.slicing.nodes.GraphNode;
 
@@ -26,6 +30,13 @@ public abstract class SlicingCriterion {
     public abstract Optional<GraphNode<?>> findNode(PDG graph);
     /** Locate the slicing criterion in a system dependence graph. */
     public abstract Optional<GraphNode<?>> findNode(SDG graph);
+    /** Locate the slicing criterion in a frozen system dependence graph. */
+    public abstract Optional<GraphNode<?>> findNode(FrozenSDG graph);
+    /** Locate the method or constructor that contains the slicing criterion, before building any graph.
+     *  By default, it can't be located. */
+    public Optional<CallableDeclaration<?>> findDeclaration(NodeList<CompilationUnit> cus) {
+        return Optional.empty();
+    }
 
     @Override
     public String toString() {
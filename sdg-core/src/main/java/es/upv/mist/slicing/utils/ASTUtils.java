@@ -15,6 +15,7 @@ import com.github.javaparser.ast.stmt.SwitchStmt;
 import com.github.javaparser.resolution.Resolvable;
 import com.github.javaparser.resolution.declarations.*;
 import com.github.javaparser.resolution.types.ResolvedType;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
 import com.github.javaparser.symbolsolver.model.typesystem.ReferenceTypeImpl;
 import es.upv.mist.slicing.nodes.GraphNode;
 
@@ -53,8 +54,16 @@ public class ASTUtils {
                 && equalsWithRange(n1, n2);
     }
 
+    /** Resolve an AST node through the cache of its {@link AnalysisContext}. Resolvables that are not
+     *  AST nodes are resolved directly. */
+    public static <T> T resolve(Resolvable<T> resolvable) {
+        if (resolvable instanceof Node)
+            return AnalysisContext.of((Node) resolvable).resolve(resolvable);
+        return resolvable.resolve();
+    }
+
     public static boolean resolvableIsVoid(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        var resolved = call.resolve();
+        var resolved = resolve(call);
         if (resolved instanceof ResolvedMethodDeclaration)
             return ((ResolvedMethodDeclaration) resolved).getReturnType().isVoid();
         if (resolved instanceof ResolvedConstructorDeclaration)
@@ -118,7 +127,7 @@ public class ASTUtils {
     }
 
     public static boolean shouldVisitArgumentsForMethodCalls(Resolvable<? extends ResolvedMethodLikeDeclaration> call) {
-        return getResolvedAST(call.resolve()).isEmpty();
+        return getResolvedAST(resolve(call)).isEmpty();
     }
 
     public static boolean shouldVisitArgumentsForMethodCalls(Resolvable<? extends ResolvedMethodLikeDeclaration> call, GraphNode<?> graphNode) {
@@ -146,9 +155,9 @@ public class ASTUtils {
         return new IdentityHashMap<>();
     }
 
-    /** Converts a type declaration into just a type. */
-    public static ResolvedType resolvedTypeDeclarationToResolvedType(ResolvedReferenceTypeDeclaration decl) {
-        return new ReferenceTypeImpl(decl, StaticTypeSolver.getTypeSolver());
+    /** Converts a type declaration into just a type, which will use the given type solver. */
+    public static ResolvedType resolvedTypeDeclarationToResolvedType(ResolvedReferenceTypeDeclaration decl, TypeSolver typeSolver) {
+        return new ReferenceTypeImpl(decl, typeSolver);
     }
 
     /**
@@ -0,0 +1,259 @@
+package es.upv.mist.slicing.utils;
+
+import com.github.javaparser.*;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.DataKey;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.resolution.Resolvable;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.symbolsolver.JavaSymbolSolver;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
+import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Optional;
+
+/**
+ * The parser configuration, type solvers and symbol resolution state of an analysis. The compilation units
+ * parsed with a context resolve their symbols through it, and the graphs built from them obtain it from their
+ * compilation units (see {@link #of(Node)}); so several analyses may run in the same JVM, even concurrently,
+ * without sharing their resolution state.
+ * <br/>
+ * Contexts also memoize the resolution of the AST nodes of their compilation units in the nodes themselves,
+ * so the results are released along with them, see {@link #resolve(Resolvable)}.
+ * <br/>
+ * The {@link #getDefault() default context} is the one used by {@link StaticTypeSolver} and the compilation units
+ * that were parsed without a context. {@link StaticJavaParser} only parses with its configuration once it has been
+ * {@link #installDefault() installed}.
+ */
+public class AnalysisContext implements AutoCloseable {
+    /** The key under which each compilation unit stores the context that parsed it. */
+    public static final DataKey<AnalysisContext> CONTEXT_KEY = new DataKey<>() {};
+    /** The key under which each AST node stores the result of its last resolution, see {@link #resolve(Resolvable)}. */
+    protected static final DataKey<Resolution> RESOLUTION_KEY = new DataKey<>() {};
+
+    protected static final AnalysisContext DEFAULT = new AnalysisContext(new ParserConfiguration(), SynchronizedSymbolResolver.LOCK, false);
+
+    protected final CombinedTypeSolver typeSolver = new CombinedTypeSolver();
+    /** The root of the type solvers of this context, which is emptied when it is closed. */
+    protected final ReleasableTypeSolver rootSolver = new ReleasableTypeSolver(typeSolver);
+    protected final ParserConfiguration parserConfiguration;
+    /** The lock that guards the resolution of the symbols of this context. */
+    protected final Object lock;
+    /** The parser of each thread, which share this context's configuration. */
+    protected final ThreadLocal<JavaParser> parser;
+    /** Whether we've added the JRE type solver or not. */
+    protected boolean typeSolverHasJRE = false;
+    /** Whether the resolutions of AST nodes are memoized. */
+    protected volatile boolean resolutionCacheEnabled;
+    /** The version of the type solvers. The resolutions memoized for a previous version are discarded. */
+    protected volatile int solverVersion = 0;
+
+    /** Create a new context, with a default parser configuration and no type solvers. */
+    public AnalysisContext() {
+        this(new ParserConfiguration(), new Object(), true);
+    }
+
+    protected AnalysisContext(ParserConfiguration parserConfiguration, Object lock, boolean resolutionCacheEnabled) {
+        this.parserConfiguration = parserConfiguration;
+        this.lock = lock;
+        this.resolutionCacheEnabled = resolutionCacheEnabled;
+        this.parser = ThreadLocal.withInitial(() -> new JavaParser(parserConfiguration));
+        parserConfiguration.setSymbolResolver(new SynchronizedSymbolResolver(new JavaSymbolSolver(rootSolver), lock));
+        parserConfiguration.getPostProcessors().add((result, configuration) ->
+                result.getResult().ifPresent(node -> node.setData(CONTEXT_KEY, this)));
+    }
+
+    /** The context used by {@link StaticTypeSolver}, and by {@link StaticJavaParser} once it has been installed. */
+    public static AnalysisContext getDefault() {
+        return DEFAULT;
+    }
+
+    /** Make {@link StaticJavaParser} parse with the configuration of the default context, so that the compilation
+     *  units it parses resolve their symbols with it. The configuration that it used so far is discarded, so it
+     *  should be modified after installing this one. */
+    public static synchronized void installDefault() {
+        if (StaticJavaParser.getConfiguration() != DEFAULT.parserConfiguration)
+            StaticJavaParser.setConfiguration(DEFAULT.parserConfiguration);
+    }
+
+    /** The context of the compilation unit that contains the given node, or the default one
+     *  if it is not contained in a compilation unit that was parsed with a context. */
+    public static AnalysisContext of(Node node) {
+        return node.findCompilationUnit()
+                .filter(cu -> cu.containsData(CONTEXT_KEY))
+                .map(cu -> cu.getData(CONTEXT_KEY))
+                .orElse(DEFAULT);
+    }
+
+    /** The context of the given compilation units, or the default one if the list is empty.
+     *  @throws IllegalArgumentException If the compilation units belong to different contexts. */
+    public static AnalysisContext of(NodeList<CompilationUnit> compilationUnits) {
+        Optional<AnalysisContext> context = compilationUnits.getFirst().map(AnalysisContext::of);
+        for (CompilationUnit cu : compilationUnits)
+            if (of(cu) != context.get())
+                throw new IllegalArgumentException("The compilation units belong to different analysis contexts");
+        return context.orElse(DEFAULT);
+    }
+
+    /** Append a type solver (typically a {@link ProjectTypeSolver}). */
+    public synchronized void addTypeSolver(TypeSolver typeSolver) {
+        this.typeSolver.add(typeSolver);
+        clearResolutionCache();
+    }
+
+    /** Append a {@link ReflectionTypeSolver} to the type solver, JRE only.
+     *  This operation can only be performed once, subsequent invocations will be discarded. */
+    public void addTypeSolverJRE() {
+        addTypeSolverJRE(true);
+    }
+
+    /** Append a {@link ReflectionTypeSolver} to the type solver.
+     *  This operation can only be performed once, subsequent invocations will be discarded. */
+    public synchronized void addTypeSolverJRE(boolean jreOnly) {
+        if (!typeSolverHasJRE) {
+            typeSolver.add(new ReflectionTypeSolver(jreOnly));
+            typeSolverHasJRE = true;
+            clearResolutionCache();
+        }
+    }
+
+    /** Obtain the type solver, which is the root of the solvers of this context. This resulting object should
+     *  not be manually modified. */
+    public TypeSolver getTypeSolver() {
+        return rootSolver;
+    }
+
+    /** The configuration of the parsers of this context. It may be modified before parsing any file. */
+    public ParserConfiguration getParserConfiguration() {
+        return parserConfiguration;
+    }
+
+    /** The lock that guards the resolution of symbols in this context. Code that runs in parallel should use
+     *  the declarations and types obtained from the symbol resolver while holding it.
+     *  @see SynchronizedSymbolResolver */
+    public Object getLock() {
+        return lock;
+    }
+
+    /** Resolve an AST node of this context, or obtain the result of a previous resolution of the same node,
+     *  which is stored in the node. The symbols that can't be resolved throw a new exception every time, caused
+     *  by the one thrown by their resolution. Only the resolution itself holds the lock of this context (see
+     *  {@link SynchronizedSymbolResolver}); two threads may resolve the same node concurrently, and then the
+     *  result of the first one is kept. */
+    @SuppressWarnings("unchecked")
+    public <T> T resolve(Resolvable<T> resolvable) {
+        if (!resolutionCacheEnabled || !(resolvable instanceof Node))
+            return resolvable.resolve();
+        Node node = (Node) resolvable;
+        int version = solverVersion;
+        Resolution resolution;
+        synchronized (node) {
+            resolution = node.containsData(RESOLUTION_KEY) ? node.getData(RESOLUTION_KEY) : null;
+        }
+        if (resolution == null || resolution.version != version) {
+            Object result;
+            try {
+                result = resolvable.resolve();
+            } catch (UnsolvedSymbolException e) {
+                result = e;
+            }
+            synchronized (node) {
+                Resolution previous = node.containsData(RESOLUTION_KEY) ? node.getData(RESOLUTION_KEY) : null;
+                if (previous != null && previous.version == version) {
+                    resolution = previous;
+                } else {
+                    resolution = new Resolution(version, result);
+                    node.setData(RESOLUTION_KEY, resolution);
+                }
+            }
+        }
+        if (resolution.result instanceof UnsolvedSymbolException) {
+            UnsolvedSymbolException e = (UnsolvedSymbolException) resolution.result;
+            throw new UnsolvedSymbolException(e.getName(), e);
+        }
+        return (T) resolution.result;
+    }
+
+    /** Set whether the resolutions of AST nodes are memoized. They are in every context but the default one,
+     *  as its compilation units may be kept by the user for longer than the analysis that resolved them. */
+    public void setResolutionCacheEnabled(boolean enabled) {
+        resolutionCacheEnabled = enabled;
+        clearResolutionCache();
+    }
+
+    /** Discard the resolutions memoized so far, which are kept in the AST nodes until they are resolved again. */
+    protected synchronized void clearResolutionCache() {
+        solverVersion++;
+    }
+
+    /** Parse a file with this thread's parser. */
+    public CompilationUnit parse(File file) throws FileNotFoundException {
+        ParseResult<CompilationUnit> result = parser.get().parse(file);
+        if (result.isSuccessful() && result.getResult().isPresent())
+            return result.getResult().get();
+        throw new ParseProblemException(result.getProblems());
+    }
+
+    /** Release the type solvers of this context, which can't resolve any symbol from then on. JavaParser keeps
+     *  the facade of each root type solver in a global map, which is never emptied; the facade of this context
+     *  stays there, but its root solver no longer references the solvers (and the compilation units) of this
+     *  context. The rest of the state of this context is freed when it and its compilation units are no longer
+     *  referenced. */
+    @Override
+    public void close() {
+        clearResolutionCache();
+        rootSolver.release();
+    }
+
+    /** The root of the type solvers of a context, which delegates in them until it is released. */
+    protected static class ReleasableTypeSolver implements TypeSolver {
+        protected volatile TypeSolver delegate;
+
+        protected ReleasableTypeSolver(TypeSolver delegate) {
+            this.delegate = delegate;
+            delegate.setParent(this);
+        }
+
+        /** Stop delegating in the solver given, so that it can be collected. */
+        protected void release() {
+            delegate = null;
+        }
+
+        @Override
+        public TypeSolver getParent() {
+            return null;
+        }
+
+        @Override
+        public void setParent(TypeSolver parent) {
+            throw new UnsupportedOperationException("The root solver of a context cannot have a parent");
+        }
+
+        /** @throws IllegalStateException If the context has been closed. */
+        @Override
+        public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+            TypeSolver solver = delegate;
+            if (solver == null)
+                throw new IllegalStateException("The analysis context has been closed");
+            return solver.tryToSolveType(name);
+        }
+    }
+
+    /** The result of the resolution of an AST node, or the exception thrown by it, with the version of the
+     *  type solvers with which it was obtained. */
+    protected static final class Resolution {
+        protected final int version;
+        protected final Object result;
+
+        protected Resolution(int version, Object result) {
+            this.version = version;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package es.upv.mist.slicing.utils;
+
+import com.github.javaparser.ParseProblemException;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.TypeDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.github.javaparser.ast.stmt.ExplicitConstructorInvocationStmt;
+import com.github.javaparser.ast.type.ClassOrInterfaceType;
+import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.declarations.ResolvedReferenceTypeDeclaration;
+import com.github.javaparser.symbolsolver.javaparser.Navigator;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import com.github.javaparser.symbolsolver.model.resolution.SymbolReference;
+import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A model of the source code of a project, which is also a type solver for it. Its files are located
+ * without parsing them, following the usual layout (type {@code a.b.C} is declared in {@code a/b/C.java},
+ * under one of the source directories); and each one is parsed once, when it is first needed, either to
+ * resolve a type or to build a graph. The compilation units are shared: the declarations found by the
+ * symbol solver are the same nodes that the graphs contain.
+ * <br/>
+ * It is used instead of a {@link com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver
+ * JavaParserTypeSolver} per directory, which would parse the files again. The files are parsed by an
+ * {@link AnalysisContext}, which should include this solver; and each thread uses its own parser, so that
+ * they may be parsed in parallel, see {@link #getAllCompilationUnits(ForkJoinPool)}. Files are parsed without
+ * holding the monitor of this solver, which only guards its maps; if two threads parse the same file,
+ * the first unit to be registered is kept.
+ */
+public class ProjectTypeSolver implements TypeSolver {
+    protected static final String JAVA_EXTENSION = ".java";
+    /** The file that declares a module, which contains no types. */
+    protected static final String MODULE_INFO = "module-info.java";
+    /** The declaration of a type in the text of a file, which may also be found in comments or strings. */
+    protected static final Pattern TYPE_DECLARATION = Pattern.compile("\\b(?:class|interface|enum)\\s+([\\w$]+)",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    /** The file that should declare each top-level type, by qualified name. Only modified by the constructor. */
+    protected final Map<String, File> typeFileMap = new HashMap<>();
+    /** The files of each package, which may declare types that don't match their file name. Only modified by the constructor. */
+    protected final Map<String, List<File>> packageFileMap = new HashMap<>();
+    /** The files of the project, sorted by package and name. Only modified by the constructor. */
+    protected final List<File> files = new ArrayList<>();
+    /** The compilation unit of each file, or empty if it couldn't be parsed. */
+    protected final Map<File, Optional<CompilationUnit>> parsedMap = new HashMap<>();
+    /** The compilation units, in the order in which they were parsed. */
+    protected final List<CompilationUnit> parsedList = new ArrayList<>();
+    /** The types that have been found, by name. Guarded by this solver's monitor, like the rest of the maps that change.
+     *  The names that aren't found are searched again, as the files that fail to be read or parsed may be fixed. */
+    protected final Map<String, SymbolReference<ResolvedReferenceTypeDeclaration>> typeCache = new HashMap<>();
+    /** The simple names of the types that may be declared in each file that hasn't been parsed (or couldn't be), found in its text. */
+    protected final Map<File, Set<String>> declaredNamesMap = new HashMap<>();
+    /** The context that parses the files. */
+    protected final AnalysisContext context;
+    protected TypeSolver parent;
+
+    /** Locates the Java files in the given source directories, which will be parsed by the default context. */
+    public ProjectTypeSolver(Collection<File> sourceDirectories) {
+        this(AnalysisContext.getDefault(), sourceDirectories);
+    }
+
+    /** Locates the Java files in the given source directories, which will be parsed by the given context. */
+    public ProjectTypeSolver(AnalysisContext context, Collection<File> sourceDirectories) {
+        this.context = context;
+        for (File directory : sourceDirectories)
+            index(directory.getAbsoluteFile().toPath(), "");
+    }
+
+    /** Register the Java files of a directory, which contains the given package, and its subdirectories.
+     *  Directories that can't be read are skipped. */
+    protected void index(Path directory, String packageName) {
+        List<Path> children;
+        try (Stream<Path> stream = Files.list(directory)) {
+            children = stream.sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            Logger.log("Skipping a directory, cannot be read: " + directory);
+            return;
+        }
+        for (Path child : children) {
+            String name = child.getFileName().toString();
+            if (Files.isDirectory(child)) {
+                index(child, qualify(packageName, name));
+            } else if (name.endsWith(JAVA_EXTENSION) && !name.equals(MODULE_INFO)) {
+                File file = child.toFile();
+                typeFileMap.putIfAbsent(qualify(packageName, name.substring(0, name.length() - JAVA_EXTENSION.length())), file);
+                packageFileMap.computeIfAbsent(packageName, p -> new LinkedList<>()).add(file);
+                files.add(file);
+            }
+        }
+    }
+
+    protected static String qualify(String packageName, String name) {
+        return packageName.isEmpty() ? name : packageName + "." + name;
+    }
+
+    /** Obtain the compilation unit of a file, parsing it if it hasn't been parsed yet.
+     *  The file need not be part of the project. */
+    public CompilationUnit getCompilationUnit(File file) throws FileNotFoundException {
+        File key = file.getAbsoluteFile();
+        Optional<CompilationUnit> cu = getParsed(key);
+        if (cu != null && cu.isPresent())
+            return cu.get();
+        return register(key, parse(key));
+    }
+
+    /** The compilation unit of a file, empty if it couldn't be parsed, or null if it hasn't been parsed. */
+    protected synchronized Optional<CompilationUnit> getParsed(File file) {
+        return parsedMap.get(file);
+    }
+
+    /** Parse a file with this thread's parser. */
+    protected CompilationUnit parse(File file) throws FileNotFoundException {
+        return context.parse(file);
+    }
+
+    /** Store the compilation unit of a file, unless it has already been parsed; and return the stored one. */
+    protected synchronized CompilationUnit register(File file, CompilationUnit cu) {
+        Optional<CompilationUnit> previous = parsedMap.get(file);
+        if (previous != null && previous.isPresent())
+            return previous.get();
+        parsedMap.put(file, Optional.of(cu));
+        parsedList.add(cu);
+        return cu;
+    }
+
+    /** Obtain the compilation units of all the files of the project, parsing those that haven't been parsed yet. */
+    public NodeList<CompilationUnit> getAllCompilationUnits() throws FileNotFoundException {
+        NodeList<CompilationUnit> list = new NodeList<>();
+        for (File file : files)
+            list.add(getCompilationUnit(file));
+        return list;
+    }
+
+    /** Obtain the compilation units of all the files of the project, parsing in the given pool those that
+     *  haven't been parsed yet. Each worker thread uses its own parser. The units are returned together,
+     *  in the order of the files, as the graphs need all of them before they start to be built. */
+    public NodeList<CompilationUnit> getAllCompilationUnits(ForkJoinPool pool) throws FileNotFoundException {
+        try {
+            return pool.submit(() -> files.parallelStream()
+                    .map(file -> {
+                        try {
+                            return getCompilationUnit(file);
+                        } catch (FileNotFoundException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .collect(Collectors.toCollection(NodeList::new))).join();
+        } catch (UncheckedIOException e) {
+            throw (FileNotFoundException) e.getCause();
+        }
+    }
+
+    /** Obtain the compilation unit of a file, and those that the class and call graphs need to
+     *  resolve its calls and types, transitively. They are parsed as the symbol solver requires them,
+     *  so the declarations that are not reachable from the file (e.g. its callers) are not included. */
+    public NodeList<CompilationUnit> getRequiredCompilationUnits(File file) throws FileNotFoundException {
+        NodeList<CompilationUnit> list = new NodeList<>();
+        Set<CompilationUnit> found = ASTUtils.newIdentityHashSet();
+        Deque<CompilationUnit> workList = new LinkedList<>();
+        workList.add(getCompilationUnit(file));
+        while (!workList.isEmpty()) {
+            CompilationUnit cu = workList.pop();
+            if (!found.add(cu))
+                continue;
+            list.add(cu);
+            int parsedCount = parsedCount();
+            resolveGraphDependencies(cu);
+            workList.addAll(parsedSince(parsedCount));
+        }
+        return list;
+    }
+
+    protected synchronized int parsedCount() {
+        return parsedList.size();
+    }
+
+    protected synchronized List<CompilationUnit> parsedSince(int index) {
+        return new ArrayList<>(parsedList.subList(index, parsedList.size()));
+    }
+
+    /** Resolve the elements of the given compilation unit that the class and call graphs resolve:
+     *  calls, their scopes and the types that each class extends or implements. Elements that can't
+     *  be resolved are ignored, as the graphs will report them. */
+    protected void resolveGraphDependencies(CompilationUnit cu) {
+        cu.accept(new VoidVisitorAdapter<Void>() {
+            @Override
+            public void visit(ClassOrInterfaceDeclaration n, Void arg) {
+                for (ClassOrInterfaceType type : n.getExtendedTypes())
+                    resolve(type::resolve);
+                for (ClassOrInterfaceType type : n.getImplementedTypes())
+                    resolve(type::resolve);
+                super.visit(n, arg);
+            }
+
+            @Override
+            public void visit(MethodCallExpr n, Void arg) {
+                resolve(n::resolve);
+                n.getScope().ifPresent(scope -> resolve(scope::calculateResolvedType));
+                super.visit(n, arg);
+            }
+
+            @Override
+            public void visit(ObjectCreationExpr n, Void arg) {
+                resolve(n::resolve);
+                super.visit(n, arg);
+            }
+
+            @Override
+            public void visit(ExplicitConstructorInvocationStmt n, Void arg) {
+                resolve(n::resolve);
+                super.visit(n, arg);
+            }
+
+            protected void resolve(Supplier<?> resolution) {
+                try {
+                    resolution.get();
+                } catch (UnsolvedSymbolException e) {
+                    Logger.log("Skipping a symbol, cannot be resolved: " + e.getName());
+                }
+            }
+        }, null);
+    }
+
+    @Override
+    public TypeSolver getParent() {
+        return parent;
+    }
+
+    @Override
+    public void setParent(TypeSolver parent) {
+        this.parent = parent;
+    }
+
+    /** Search for a type, parsing the files that may declare it without holding this solver's monitor. */
+    @Override
+    public SymbolReference<ResolvedReferenceTypeDeclaration> tryToSolveType(String name) {
+        synchronized (this) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> ref = typeCache.get(name);
+            if (ref != null)
+                return ref;
+        }
+        Optional<ResolvedReferenceTypeDeclaration> type = searchType(name);
+        if (type.isEmpty())
+            return SymbolReference.unsolved(ResolvedReferenceTypeDeclaration.class);
+        SymbolReference<ResolvedReferenceTypeDeclaration> ref = SymbolReference.solved(type.get());
+        synchronized (this) {
+            SymbolReference<ResolvedReferenceTypeDeclaration> previous = typeCache.putIfAbsent(name, ref);
+            return previous != null ? previous : ref;
+        }
+    }
+
+    /** Search for the given type: first in the file whose name matches it or one of its outer
+     *  types, and then in the rest of the files of its package. */
+    protected Optional<ResolvedReferenceTypeDeclaration> searchType(String name) {
+        String[] elements = name.split("\\.");
+        for (int i = elements.length; i > 0; i--) {
+            String topLevelName = String.join(".", Arrays.copyOfRange(elements, 0, i));
+            String typeName = String.join(".", Arrays.copyOfRange(elements, i - 1, elements.length));
+            File file = typeFileMap.get(topLevelName);
+            Optional<TypeDeclaration<?>> type = file == null ? Optional.empty() : findType(file, typeName);
+            String packageName = String.join(".", Arrays.copyOfRange(elements, 0, i - 1));
+            for (Iterator<File> it = packageFileMap.getOrDefault(packageName, Collections.emptyList()).iterator();
+                 type.isEmpty() && it.hasNext(); ) {
+                File other = it.next();
+                if (other != file && mayDeclare(other, elements[i - 1]))
+                    type = findType(other, typeName);
+            }
+            if (type.isPresent())
+                return Optional.of(JavaParserFacade.get(getRoot()).getTypeDeclaration(type.get()));
+        }
+        return Optional.empty();
+    }
+
+    /** Whether the text of a file contains the declaration of a type with the given name. This avoids
+     *  parsing every file of a package when a name is not a type declared in it. Each file is read once,
+     *  unless it can't be read, so searching for names that are not declared in the project is cheap. */
+    protected boolean mayDeclare(File file, String simpleName) {
+        Set<String> names;
+        synchronized (this) {
+            if (parsedMap.getOrDefault(file, Optional.empty()).isPresent())
+                return true;
+            names = declaredNamesMap.get(file);
+        }
+        if (names == null) {
+            names = new HashSet<>();
+            try {
+                Matcher matcher = TYPE_DECLARATION.matcher(Files.readString(file.toPath()));
+                while (matcher.find())
+                    names.add(matcher.group(1));
+            } catch (IOException e) {
+                return false;
+            }
+            synchronized (this) {
+                declaredNamesMap.putIfAbsent(file, names);
+            }
+        }
+        return names.contains(simpleName);
+    }
+
+    /** Search for a type in a file, parsing it if necessary. Files that can't be parsed contain no types. */
+    protected Optional<TypeDeclaration<?>> findType(File file, String typeName) {
+        Optional<CompilationUnit> cu = getParsed(file);
+        if (cu == null || cu.isEmpty()) {
+            try {
+                cu = Optional.of(getCompilationUnit(file));
+            } catch (FileNotFoundException | ParseProblemException e) {
+                cu = Optional.empty();
+                synchronized (this) {
+                    parsedMap.putIfAbsent(file, cu);
+                }
+            }
+        }
+        return cu.flatMap(unit -> Navigator.findType(unit, typeName));
+    }
+}
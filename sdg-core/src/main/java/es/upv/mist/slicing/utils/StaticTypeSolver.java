@@ -1,26 +1,16 @@
 package es.upv.mist.slicing.utils;
 
-import com.github.javaparser.StaticJavaParser;
-import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.model.resolution.TypeSolver;
-import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
 
-/** A static class whose only purpose is storing a type solver for conversions
- *  of ResolvedTypeDeclaration objects into ResolvedType ones. */
+/** A static class whose only purpose is configuring the type solver of the
+ *  {@link AnalysisContext#getDefault() default context}, which it installs in
+ *  {@link com.github.javaparser.StaticJavaParser StaticJavaParser} (see {@link AnalysisContext#installDefault()}). */
 public class StaticTypeSolver {
-    protected static final CombinedTypeSolver combinedTypeSolver = new CombinedTypeSolver();
-
-    /** Whether we've added the JRE type solver or not. */
-    protected static boolean typeSolverHasJRE = false;
-
-    static {
-        StaticJavaParser.getConfiguration().setSymbolResolver(new JavaSymbolSolver(combinedTypeSolver));
-    }
-
-    /** Append a type solver (typically a {@link com.github.javaparser.symbolsolver.resolution.typesolvers.JavaParserTypeSolver JavaParserTypeSolver}. */
+    /** Append a type solver (typically a {@link ProjectTypeSolver}). */
     public static void addTypeSolver(TypeSolver typeSolver) {
-        combinedTypeSolver.add(typeSolver);
+        AnalysisContext.installDefault();
+        AnalysisContext.getDefault().addTypeSolver(typeSolver);
     }
 
     /** Append a {@link ReflectionTypeSolver} to the type solver, JRE only.
@@ -34,14 +24,7 @@ public class StaticTypeSolver {
      *  This operation can only be performed once, subsequent invocations will
      *  be discarded.  */
     public static void addTypeSolverJRE(boolean jreOnly) {
-        if (!typeSolverHasJRE) {
-            combinedTypeSolver.add(new ReflectionTypeSolver(true));
-            typeSolverHasJRE = true;
-        }
-    }
-
-    /** Obtain the type solver. This resulting object should not be manually modified. */
-    protected static TypeSolver getTypeSolver() {
-        return combinedTypeSolver;
+        AnalysisContext.installDefault();
+        AnalysisContext.getDefault().addTypeSolverJRE(jreOnly);
     }
 }
@@ -0,0 +1,52 @@
+package es.upv.mist.slicing.utils;
+
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.types.ResolvedType;
+
+/**
+ * A symbol resolver that serializes every resolution, as JavaParser's symbol solver is not thread-safe.
+ * <br/>
+ * The declarations and types it returns may resolve other symbols lazily (e.g. when obtaining the signature
+ * of a method), so code that runs in parallel should use them while holding the lock of this resolver, which
+ * is {@link #LOCK} unless another one is given (see {@link AnalysisContext#getLock()}).
+ */
+public class SynchronizedSymbolResolver implements SymbolResolver {
+    /** The lock that guards the resolution of symbols of the default context. It is reentrant, as any Java monitor. */
+    public static final Object LOCK = new Object();
+
+    protected final SymbolResolver resolver;
+    protected final Object lock;
+
+    public SynchronizedSymbolResolver(SymbolResolver resolver) {
+        this(resolver, LOCK);
+    }
+
+    public SynchronizedSymbolResolver(SymbolResolver resolver, Object lock) {
+        this.resolver = resolver;
+        this.lock = lock;
+    }
+
+    @Override
+    public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+        synchronized (lock) {
+            return resolver.resolveDeclaration(node, resultClass);
+        }
+    }
+
+    @Override
+    public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+        synchronized (lock) {
+            return resolver.toResolvedType(javaparserType, resultClass);
+        }
+    }
+
+    @Override
+    public ResolvedType calculateType(Expression expression) {
+        synchronized (lock) {
+            return resolver.calculateType(expression);
+        }
+    }
+}
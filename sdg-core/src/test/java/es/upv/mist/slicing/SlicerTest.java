@@ -3,11 +3,22 @@ package es.upv.mist.slicing;
 import com.github.javaparser.StaticJavaParser;
 import com.github.javaparser.ast.CompilationUnit;
 import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.symbolsolver.javaparsermodel.JavaParserFacade;
+import es.upv.mist.slicing.arcs.sdg.SummaryArc;
+import es.upv.mist.slicing.graphs.CallGraph;
+import es.upv.mist.slicing.graphs.augmented.ASDG;
+import es.upv.mist.slicing.graphs.augmented.PSDG;
 import es.upv.mist.slicing.graphs.exceptionsensitive.ESSDG;
+import es.upv.mist.slicing.graphs.sdg.FrozenSDG;
 import es.upv.mist.slicing.graphs.sdg.SDG;
+import es.upv.mist.slicing.graphs.sdg.SummaryArcAnalyzer;
+import es.upv.mist.slicing.nodes.GraphNode;
 import es.upv.mist.slicing.slicing.FileLineSlicingCriterion;
+import es.upv.mist.slicing.slicing.NodeIdSlicingCriterion;
 import es.upv.mist.slicing.slicing.Slice;
+import es.upv.mist.slicing.slicing.SliceIndex;
 import es.upv.mist.slicing.slicing.SlicingCriterion;
+import es.upv.mist.slicing.utils.AnalysisContext;
 import es.upv.mist.slicing.utils.StaticTypeSolver;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -18,8 +29,14 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class SlicerTest {
     static {
@@ -31,6 +48,25 @@ public class SlicerTest {
     private static final String DOT_JAVA = ".java";
     private static final String SDG_CRITERION = ".sdg.criterion";
     private static final String SDG_SLICE = ".sdg.sliced";
+    private static final String DEMAND_SRC = "demand/Shapes.java";
+    private static final int THREADS = 4;
+    /** The programs whose exceptions can only be represented by the ESSDG: the other graphs can't be built from them. */
+    private static final Set<String> ESSDG_ONLY = Set.of("Carlos1.java", "Carlos2.java");
+
+    /** The graphs in which the regression programs are built. */
+    public enum GraphType {
+        SDG(SDG::new), ASDG(ASDG::new), PSDG(PSDG::new), ESSDG(ESSDG::new);
+
+        private final Supplier<SDG> factory;
+
+        GraphType(Supplier<SDG> factory) {
+            this.factory = factory;
+        }
+
+        public SDG create() {
+            return factory.get();
+        }
+    }
 
     public static void findFiles(File directory, String suffix, Consumer<File> consumer) {
         File[] files = directory.listFiles();
@@ -51,6 +87,27 @@ public class SlicerTest {
         return args.toArray(Arguments[]::new);
     }
 
+    /** Each regression program and its slicing criterion, with every graph that can be built from it. */
+    public static Arguments[] findAllFilesAndGraphs() {
+        return findAllFilesAndGraphs(EnumSet.allOf(GraphType.class));
+    }
+
+    /** Each regression program and its slicing criterion, with every graph but the ESSDG that can be built from it. */
+    public static Arguments[] findAllFilesAndClassicGraphs() {
+        return findAllFilesAndGraphs(EnumSet.of(GraphType.SDG, GraphType.ASDG, GraphType.PSDG));
+    }
+
+    private static Arguments[] findAllFilesAndGraphs(Set<GraphType> types) {
+        Collection<Arguments> args = new LinkedList<>();
+        for (Arguments file : findAllFiles()) {
+            File source = (File) file.get()[0];
+            for (GraphType type : types)
+                if (type == GraphType.ESSDG || !ESSDG_ONLY.contains(source.getName()))
+                    args.add(Arguments.of(source, file.get()[2], type));
+        }
+        return args.toArray(Arguments[]::new);
+    }
+
     private static Optional<Arguments> createArgumentForTest(File javaFile) {
         File slice = new File(javaFile.getParent(), javaFile.getName() + SDG_SLICE);
         Optional<SlicingCriterion> criterion = findSDGCriterion(javaFile);
@@ -69,6 +126,335 @@ public class SlicerTest {
         assert equal: "The slice for " + source.toString() + " has changed, please fix the error or update the reference slice.";
     }
 
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndGraphs")
+    public void concurrentSlicingTest(File source, SlicingCriterion sc, GraphType type) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            SDG sdg = type.create();
+            sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+            List<SlicingCriterion> criteria = new ArrayList<>();
+            criteria.add(sc);
+            for (GraphNode<?> node : sdg.vertexSet())
+                criteria.add(new NodeIdSlicingCriterion(node.getId(), null));
+            Map<SlicingCriterion, Slice> expected = new HashMap<>();
+            for (SlicingCriterion criterion : criteria)
+                expected.put(criterion, sdg.slice(criterion));
+            String expectedCode = expected.get(sc).toAst().toString();
+            // Each criterion is sliced by multiple threads, in different orders
+            List<Callable<Boolean>> tasks = new LinkedList<>();
+            for (int i = 0; i < THREADS; i++) {
+                List<SlicingCriterion> shuffled = new ArrayList<>(criteria);
+                Collections.shuffle(shuffled, new Random(i));
+                tasks.add(() -> {
+                    for (SlicingCriterion criterion : shuffled)
+                        if (!sdg.slice(criterion).equals(expected.get(criterion)))
+                            return false;
+                    return sdg.slice(sc).toAst().toString().equals(expectedCode);
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assert result.get() : "The concurrent slices of " + source + " in the " + type + " differ from the sequential ones.";
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("findAllFiles")
+    public void isolatedContextsTest(File source, File target, SlicingCriterion sc) throws Exception {
+        if (!target.exists())
+            return;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            // Each thread parses, builds and slices the program in its own context
+            List<Callable<Boolean>> tasks = new LinkedList<>();
+            for (int i = 0; i < THREADS; i++) {
+                tasks.add(() -> {
+                    try (AnalysisContext context = new AnalysisContext()) {
+                        context.addTypeSolverJRE();
+                        context.getParserConfiguration().setAttributeComments(false);
+                        SDG sdg = new ESSDG();
+                        sdg.build(new NodeList<>(context.parse(source)));
+                        return sdg.getContext() == context && slicesMatch(sdg.slice(sc), target);
+                    }
+                });
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assert result.get() : "The slice for " + source + " differs when it is computed in a separate context.";
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] {0}")
+    @MethodSource("findAllFiles")
+    public void closedContextsTest(File source, File target, SlicingCriterion sc) throws Exception {
+        if (!target.exists())
+            return;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try (AnalysisContext shared = new AnalysisContext()) {
+            shared.addTypeSolverJRE();
+            shared.getParserConfiguration().setAttributeComments(false);
+            SDG sharedSDG = new ESSDG();
+            sharedSDG.build(new NodeList<>(shared.parse(source)));
+            JavaParserFacade facade = JavaParserFacade.get(shared.getTypeSolver());
+            // Some threads slice in the shared context while others open and close their own contexts
+            List<Callable<Boolean>> tasks = new LinkedList<>();
+            for (int i = 0; i < THREADS; i++) {
+                if (i % 2 == 0) {
+                    tasks.add(() -> slicesMatch(sharedSDG.slice(sc), target));
+                } else {
+                    tasks.add(() -> {
+                        AnalysisContext context = new AnalysisContext();
+                        try (context) {
+                            context.addTypeSolverJRE();
+                            context.getParserConfiguration().setAttributeComments(false);
+                            SDG sdg = new ESSDG();
+                            sdg.build(new NodeList<>(context.parse(source)));
+                            if (!slicesMatch(sdg.slice(sc), target))
+                                return false;
+                        }
+                        // The solvers of the closed context have been released
+                        try {
+                            context.getTypeSolver().tryToSolveType(Object.class.getName());
+                            return false;
+                        } catch (IllegalStateException e) {
+                            return true;
+                        }
+                    });
+                }
+            }
+            for (Future<Boolean> result : executor.invokeAll(tasks))
+                assert result.get() : "The slice for " + source + " differs when other contexts are closed concurrently.";
+            assert JavaParserFacade.get(shared.getTypeSolver()) == facade : "Closing a context released the facade of another one.";
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndGraphs")
+    public void parallelBuildTest(File source, SlicingCriterion sc, GraphType type) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try {
+            NodeList<CompilationUnit> units = new NodeList<>(StaticJavaParser.parse(source));
+            SDG sequential = type.create();
+            sequential.build(units);
+            String expected = describe(sequential);
+            // The ids must not depend on the order in which the parallel tasks are run
+            for (int i = 0; i < 2; i++) {
+                SDG parallel = type.create();
+                parallel.setBuildPool(pool);
+                parallel.build(units);
+                assert describe(parallel).equals(expected) : "The parallel build of " + source + " in the " + type +
+                        " differs from the sequential one.";
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelInterproceduralTest() {
+        // Many independent chains of calls that define and use fields, so that the interprocedural
+        // finders save the actions of different declarations in parallel
+        StringBuilder code = new StringBuilder();
+        for (int c = 0; c < 8; c++) {
+            code.append("class C").append(c).append(" { int f; int g; static int s;\n");
+            for (int m = 0; m < 4; m++) {
+                code.append("int m").append(m).append("(int a, int b) { f = a + s; g = f * b; int r = 0;");
+                if (m < 3)
+                    code.append(" r = m").append(m + 1).append("(a, g); r += m").append(m + 1).append("(f, b);");
+                code.append(" s = r + g; return r; }\n");
+            }
+            code.append("}\n");
+        }
+        NodeList<CompilationUnit> units = new NodeList<>(StaticJavaParser.parse(code.toString()));
+        SDG sequential = new SDG();
+        sequential.build(units);
+        String expected = describe(sequential);
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try {
+            for (int i = 0; i < 4; i++) {
+                SDG parallel = new SDG();
+                parallel.setBuildPool(pool);
+                parallel.build(units);
+                assert describe(parallel).equals(expected) : "The parallel build differs from the sequential one.";
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndGraphs")
+    public void frozenSlicingTest(File source, SlicingCriterion sc, GraphType type) throws FileNotFoundException {
+        SDG sdg = type.create();
+        sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+        FrozenSDG frozen = sdg.freeze();
+        for (GraphNode<?> node : sdg.vertexSet()) {
+            SlicingCriterion criterion = new NodeIdSlicingCriterion(node.getId(), "");
+            assert sdg.slice(criterion).equals(frozen.slice(criterion)) : "The frozen slice of node " + node.getId() +
+                    " of " + source + " in the " + type + " differs from the original one.";
+        }
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndGraphs")
+    public void batchSlicingTest(File source, SlicingCriterion sc, GraphType type) throws FileNotFoundException {
+        SDG sdg = type.create();
+        sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+        // Every node is a criterion, so that most graphs are sliced in several batches of 64 criteria
+        List<SlicingCriterion> criteria = new ArrayList<>();
+        for (GraphNode<?> node : sdg.vertexSet())
+            criteria.add(new NodeIdSlicingCriterion(node.getId(), ""));
+        List<Slice> slices = sdg.sliceAll(criteria);
+        assert slices.size() == criteria.size() && sdg.freeze() == sdg.freeze();
+        for (int i = 0; i < criteria.size(); i++)
+            assert slices.get(i).equals(sdg.slice(criteria.get(i))) : "The batch slice of " + criteria.get(i) +
+                    " of " + source + " in the " + type + " differs from the single one.";
+    }
+
+    /** The index follows the classic algorithm (and its pseudo-predicate rule), but not the exception-sensitive one. */
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndClassicGraphs")
+    public void sliceIndexTest(File source, SlicingCriterion sc, GraphType type) throws FileNotFoundException {
+        SDG sdg = type.create();
+        sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+        SliceIndex index = new SliceIndex(sdg.freeze());
+        for (GraphNode<?> node : sdg.vertexSet()) {
+            SlicingCriterion criterion = new NodeIdSlicingCriterion(node.getId(), "");
+            assert index.slice(criterion).equals(sdg.slice(criterion)) : "The indexed slice of " + criterion +
+                    " of " + source + " in the " + type + " differs from the traversed one.";
+        }
+    }
+
+    /** The ESSDG already computes its summary arcs with the {@link SummaryArcAnalyzer}. */
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndClassicGraphs")
+    public void summaryArcTest(File source, SlicingCriterion sc, GraphType type) throws FileNotFoundException {
+        SDG worklist = type.create();
+        worklist.build(new NodeList<>(StaticJavaParser.parse(source)));
+        SDG fixedPoint = fixedPointSummaryGraph(type);
+        fixedPoint.build(new NodeList<>(StaticJavaParser.parse(source)));
+        assert describe(worklist).equals(describe(fixedPoint)) : "The summary arcs of " + source + " in the " +
+                type + " differ between both analyzers.";
+    }
+
+    @Test
+    public void recursiveSummaryArcTest() throws FileNotFoundException {
+        // found -> equals -> included -> found: the arcs from the fields of the receivers in the calls to 'included'
+        // (line 40) come from the summary of 'found'. The baseline SummaryArcAnalyzer updated its stored values
+        // in place, so it never revisited the callers of a declaration and only found the arc from 'g'.
+        File source = new File(Thread.currentThread().getContextClassLoader().getResource(TEST_PKG).getPath(),
+                "review-07-2020/P1.java");
+        for (SDG sdg : List.of(new SDG(), fixedPointSummaryGraph(GraphType.SDG))) {
+            sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+            List<String> arcs = sdg.edgeSet().stream()
+                    .filter(SummaryArc.class::isInstance)
+                    .filter(arc -> sdg.getEdgeTarget(arc).getAstNode().getBegin().orElseThrow().line == 40)
+                    .map(arc -> sdg.getEdgeSource(arc).getLabel())
+                    .sorted().collect(Collectors.toList());
+            assert arcs.equals(List.of("Figure[] figuresList_in = figuresList", "Figure[] figuresList_in = figuresList",
+                    "FiguresGroup g_in = g", "int numF_in = numF", "int numF_in = numF")) : "Wrong summary arcs in the calls to 'included': " + arcs;
+        }
+    }
+
+    /** An SDG, ASDG or PSDG whose summary arcs are computed by the {@link SummaryArcAnalyzer}. */
+    private static SDG fixedPointSummaryGraph(GraphType type) {
+        switch (type) {
+            case SDG:
+                return new SDG() {
+                    @Override
+                    protected Builder createBuilder() {
+                        SDG sdg = this;
+                        return new Builder() {
+                            @Override
+                            protected void createSummaryArcs(CallGraph callGraph) {
+                                new SummaryArcAnalyzer(sdg, callGraph).analyze();
+                            }
+                        };
+                    }
+                };
+            case ASDG:
+                return new ASDG() {
+                    @Override
+                    protected Builder createBuilder() {
+                        ASDG asdg = this;
+                        return new Builder() {
+                            @Override
+                            protected void createSummaryArcs(CallGraph callGraph) {
+                                new SummaryArcAnalyzer(asdg, callGraph).analyze();
+                            }
+                        };
+                    }
+                };
+            case PSDG:
+                return new PSDG() {
+                    @Override
+                    protected Builder createBuilder() {
+                        PSDG psdg = this;
+                        return new Builder() {
+                            @Override
+                            protected void createSummaryArcs(CallGraph callGraph) {
+                                new SummaryArcAnalyzer(psdg, callGraph).analyze();
+                            }
+                        };
+                    }
+                };
+            default:
+                throw new IllegalArgumentException("The " + type + " computes its summary arcs with the SummaryArcAnalyzer");
+        }
+    }
+
+    /** A description of the nodes of a graph, sorted by id, and its arcs, sorted by the ids they connect. */
+    private static String describe(SDG sdg) {
+        StringBuilder builder = new StringBuilder();
+        for (GraphNode<?> node : new TreeSet<>(sdg.vertexSet()))
+            builder.append(node.getClass().getSimpleName()).append(' ').append(node.getLongLabel()).append('\n');
+        sdg.edgeSet().stream()
+                .map(arc -> sdg.getEdgeSource(arc).getId() + " -> " + sdg.getEdgeTarget(arc).getId() + " " +
+                        arc.getClass().getSimpleName() + " " + arc.getLabel())
+                .sorted().forEach(line -> builder.append(line).append('\n'));
+        return builder.toString();
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("findAllFilesAndGraphs")
+    public void demandSlicingTest(File source, SlicingCriterion sc, GraphType type) throws FileNotFoundException {
+        SDG full = type.create();
+        full.build(new NodeList<>(StaticJavaParser.parse(source)));
+        SDG demand = type.create();
+        demand.buildOnDemand(new NodeList<>(StaticJavaParser.parse(source)), sc);
+        assert demand.slice(sc).toAst().toString().equals(full.slice(sc).toAst().toString()) :
+                "The demand-driven slice of " + source + " in the " + type + " differs from the full one.";
+    }
+
+    @Test
+    public void demandDispatchTest() throws FileNotFoundException {
+        File source = new File(Thread.currentThread().getContextClassLoader().getResource(DEMAND_SRC).getPath());
+        // The criteria are in: the caller of every method (main), a method that is only reached through a
+        // polymorphic call (Rect.area), a method with both callers and polymorphic callees (scaled),
+        // and a method without callers (Unused.noise)
+        int[] lines = { 61, 31, 53, 38 };
+        for (GraphType type : GraphType.values()) {
+            SDG full = type.create();
+            full.build(new NodeList<>(StaticJavaParser.parse(source)));
+            for (int line : lines) {
+                SlicingCriterion criterion = new FileLineSlicingCriterion(source, line);
+                SDG demand = type.create();
+                demand.buildOnDemand(new NodeList<>(StaticJavaParser.parse(source)), criterion);
+                assert demand.slice(criterion).toAst().toString().equals(full.slice(criterion).toAst().toString()) :
+                        "The demand-driven slice of line " + line + " in the " + type + " differs from the full one.";
+                if (line == 38)
+                    assert demand.getCFGs().size() == 1 : "Only the method without callers should have been built.";
+                else
+                    assert demand.getCFGs().size() == full.getCFGs().size() - 1 : "Only Unused.noise can be left out.";
+            }
+        }
+    }
+
     @Test
     public void generateDefaultSlices() {
         File testFolder = new File("./sdg-core/src/test/res/", TEST_PKG);
@@ -0,0 +1,53 @@
+package es.upv.mist.slicing.graphs;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.Node;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.expr.Expression;
+import com.github.javaparser.ast.type.Type;
+import com.github.javaparser.resolution.SymbolResolver;
+import com.github.javaparser.resolution.UnsolvedSymbolException;
+import com.github.javaparser.resolution.types.ResolvedType;
+import es.upv.mist.slicing.utils.AnalysisContext;
+import es.upv.mist.slicing.utils.StaticTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+public class ClassGraphTest {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+        StaticJavaParser.getConfiguration().setAttributeComments(false);
+    }
+
+    @Test
+    public void unresolvedClassTest() {
+        CompilationUnit broken = StaticJavaParser.parse("class Broken { void m() {} }");
+        CompilationUnit shapes = StaticJavaParser.parse("class Shape { int area() { return 0; } }\n" +
+                "class Square extends Shape { int area() { return 4; } }");
+        // The classes of the first unit can't be resolved, which must not affect the lookup of other classes
+        broken.setData(Node.SYMBOL_RESOLVER_KEY, new SymbolResolver() {
+            @Override
+            public <T> T resolveDeclaration(Node node, Class<T> resultClass) {
+                throw new UnsolvedSymbolException(node.toString());
+            }
+
+            @Override
+            public <T> T toResolvedType(Type javaparserType, Class<T> resultClass) {
+                throw new UnsolvedSymbolException(javaparserType.toString());
+            }
+
+            @Override
+            public ResolvedType calculateType(Expression expression) {
+                throw new UnsolvedSymbolException(expression.toString());
+            }
+        });
+        ClassGraph classGraph = new ClassGraph(AnalysisContext.getDefault());
+        classGraph.build(new NodeList<>(broken, shapes));
+        ClassOrInterfaceDeclaration shape = shapes.getClassByName("Shape").orElseThrow();
+        assert classGraph.subclassesOf(shape.resolve().asClass())
+                .equals(Set.of(shape, shapes.getClassByName("Square").orElseThrow()));
+    }
+}
@@ -0,0 +1,51 @@
+package es.upv.mist.slicing.graphs.cfg;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import es.upv.mist.slicing.graphs.pdg.ControlDependencyBuilder;
+import es.upv.mist.slicing.graphs.pdg.PDG;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.VariableAction;
+import es.upv.mist.slicing.utils.StaticTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class CFGTest {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+        StaticJavaParser.getConfiguration().setAttributeComments(false);
+    }
+
+    @Test
+    public void longMethodTest() throws Exception {
+        // The traversals of the CFG must not overflow the stack of a thread
+        // with the default size (the main thread's is usually larger)
+        StringBuilder code = new StringBuilder("class Long { int m() { int a = 0; int b = 0;");
+        for (int i = 0; i < 10000; i++)
+            code.append(" b = b + 1;");
+        code.append(" return a; } }");
+        CFG cfg = new CFG();
+        cfg.build(StaticJavaParser.parse(code.toString()).findFirst(MethodDeclaration.class).orElseThrow());
+        GraphNode<?> returnNode = cfg.vertexSet().stream()
+                .filter(node -> node.getLabel().equals("return a;"))
+                .findFirst().orElseThrow();
+        VariableAction usage = returnNode.getVariableActions().stream()
+                .filter(action -> action.isUsage() && action.getVariable().equals("a"))
+                .findFirst().orElseThrow();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> {
+                // The definition of 'a' is found at the start of the method
+                List<VariableAction> definitions = cfg.findLastDefinitionsFrom(usage);
+                assert definitions.size() == 1 && definitions.get(0).getGraphNode().getLabel().equals("int a = 0;");
+                assert cfg.isCompletelyDefined(usage.asUsage());
+                assert new ControlDependencyBuilder(cfg, new PDG(cfg)).postDominates(cfg.getRootNode(), returnNode);
+            }).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
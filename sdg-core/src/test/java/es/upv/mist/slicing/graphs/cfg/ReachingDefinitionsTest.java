@@ -0,0 +1,127 @@
+package es.upv.mist.slicing.graphs.cfg;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import es.upv.mist.slicing.SlicerTest;
+import es.upv.mist.slicing.graphs.sdg.SDG;
+import es.upv.mist.slicing.nodes.GraphNode;
+import es.upv.mist.slicing.nodes.VariableAction;
+import es.upv.mist.slicing.slicing.SlicingCriterion;
+import es.upv.mist.slicing.utils.ASTUtils;
+import es.upv.mist.slicing.utils.StaticTypeSolver;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+public class ReachingDefinitionsTest {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+        StaticJavaParser.getConfiguration().setAttributeComments(false);
+    }
+
+    @ParameterizedTest(name = "[{index}] {0} ({2})")
+    @MethodSource("es.upv.mist.slicing.SlicerTest#findAllFilesAndGraphs")
+    public void reachingDefinitionsTest(File source, SlicingCriterion sc, SlicerTest.GraphType type) throws FileNotFoundException {
+        SDG sdg = type.create();
+        sdg.build(new NodeList<>(StaticJavaParser.parse(source)));
+        for (CFG cfg : sdg.getCFGs())
+            assertSameReachingDefinitions(cfg);
+    }
+
+    @Test
+    public void optionalDefinitionTest() {
+        CompilationUnit unit = StaticJavaParser.parse("class Opt {\n" +
+                "    static int f() { return 1; }\n" +
+                "    static int m(boolean c) {\n" +
+                "        int x = 0;\n" +
+                "        c = f() > (x = 2);\n" +
+                "        int y = x;\n" +
+                "        while (c) {\n" +
+                "            y = y + x;\n" +
+                "            x = f();\n" +
+                "        }\n" +
+                "        return y;\n" +
+                "    }\n" +
+                "}");
+        MethodDeclaration method = unit.findAll(MethodDeclaration.class).get(1);
+        CFG cfg = new CFG();
+        cfg.build(method);
+        // 'x = f();' (line 5) may define 'x' before its certain definition. As its first definition of 'x'
+        // is optional, the search goes on to the previous nodes, even though the last one is not.
+        GraphNode<?> call = findNode(cfg, 5);
+        VariableAction.Definition definition = call.getVariableActions().stream()
+                .filter(action -> action.isDefinition() && action.getVariable().equals("x"))
+                .map(VariableAction::asDefinition).findFirst().orElseThrow();
+        call.addActionsAfterCall(Set.of(new VariableAction.Definition(definition.getVariableExpression(), call) {
+            @Override
+            public boolean isOptional() {
+                return true;
+            }
+        }), method.findFirst(MethodCallExpr.class).orElseThrow());
+        assertSameReachingDefinitions(cfg);
+
+        ReachingDefinitions reachingDefinitions = new ReachingDefinitions(cfg);
+        VariableAction usage = findUsage(cfg, 6, "x");
+        assert definitionLines(reachingDefinitions.findLastDefinitionsFrom(usage)).equals(List.of(4, 5));
+        assert reachingDefinitions.isCompletelyDefined(usage.asUsage());
+        assert reachingDefinitions.findDeclarationFor(usage).orElseThrow().getGraphNode() == findNode(cfg, 4);
+        // Loops: the definitions at the end of the body reach its start and the exit of the loop
+        usage = findUsage(cfg, 8, "x");
+        assert definitionLines(reachingDefinitions.findLastDefinitionsFrom(usage)).equals(List.of(4, 5, 9));
+        usage = findUsage(cfg, 11, "y");
+        assert definitionLines(reachingDefinitions.findLastDefinitionsFrom(usage)).equals(List.of(6, 8));
+        assert reachingDefinitions.isCompletelyDefined(usage.asUsage());
+        assert reachingDefinitions.findDeclarationFor(usage).orElseThrow().getGraphNode() == findNode(cfg, 6);
+    }
+
+    /** Checks that the reaching definitions of each action of the CFG are those found by its traversals. */
+    private static void assertSameReachingDefinitions(CFG cfg) {
+        ReachingDefinitions reachingDefinitions = new ReachingDefinitions(cfg);
+        for (GraphNode<?> node : cfg.vertexSet()) {
+            for (VariableAction action : node.getVariableActions()) {
+                // Actions moved to other graphs during the build can no longer be located
+                if (!cfg.containsVertex(action.getGraphNode()))
+                    continue;
+                Set<VariableAction> expected = ASTUtils.newIdentityHashSet();
+                expected.addAll(cfg.findLastDefinitionsFrom(action));
+                Set<VariableAction> found = ASTUtils.newIdentityHashSet();
+                found.addAll(reachingDefinitions.findLastDefinitionsFrom(action));
+                assert found.equals(expected) : "Different definitions of " + action + " in " + cfg.getDeclaration().getNameAsString();
+                assert reachingDefinitions.findDeclarationFor(action).orElse(null) == cfg.findDeclarationFor(action).orElse(null) :
+                        "Different declaration of " + action + " in " + cfg.getDeclaration().getNameAsString();
+                if (action.isUsage() && cfg.containsVertex(action.asUsage().getGraphNode()))
+                    assert reachingDefinitions.isCompletelyDefined(action.asUsage()) == cfg.isCompletelyDefined(action.asUsage()) :
+                            "Different completeness of " + action + " in " + cfg.getDeclaration().getNameAsString();
+            }
+        }
+    }
+
+    private static GraphNode<?> findNode(CFG cfg, int line) {
+        return cfg.vertexSet().stream()
+                .filter(node -> node != cfg.getRootNode())
+                .filter(node -> node.getAstNode() != null && node.getAstNode().getBegin().orElseThrow().line == line)
+                .findFirst().orElseThrow();
+    }
+
+    private static VariableAction findUsage(CFG cfg, int line, String variable) {
+        return findNode(cfg, line).getVariableActions().stream()
+                .filter(action -> action.isUsage() && action.getVariable().equals(variable))
+                .findFirst().orElseThrow();
+    }
+
+    /** The lines of the nodes that contain the given definitions, sorted. */
+    private static List<Integer> definitionLines(List<VariableAction> definitions) {
+        return definitions.stream()
+                .map(def -> def.getGraphNode().getAstNode().getBegin().orElseThrow().line)
+                .sorted().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,56 @@
+package es.upv.mist.slicing.nodes;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.NodeList;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.stmt.EmptyStmt;
+import es.upv.mist.slicing.graphs.cfg.CFG;
+import es.upv.mist.slicing.graphs.sdg.SDG;
+import es.upv.mist.slicing.slicing.NodeIdSlicingCriterion;
+import es.upv.mist.slicing.slicing.SlicingCriterion;
+import es.upv.mist.slicing.utils.StaticTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+public class GraphNodeTest {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+        StaticJavaParser.getConfiguration().setAttributeComments(false);
+    }
+
+    @Test
+    public void nodeIdentityTest() {
+        String code = "class A { int f(int x) { int y = x + 1; return y; } }";
+        SDG sdg1 = new SDG(), sdg2 = new SDG();
+        sdg1.build(new NodeList<>(StaticJavaParser.parse(code)));
+        sdg2.build(new NodeList<>(StaticJavaParser.parse(code)));
+        // Each graph generates its own ids, so the nodes of different graphs may share them, but are never equal
+        GraphNode<?> node1 = sdg1.findNodeById(0).orElseThrow();
+        GraphNode<?> node2 = sdg2.findNodeById(0).orElseThrow();
+        assert !node1.equals(node2) && !sdg2.containsVertex(node1);
+        SlicingCriterion sc = new NodeIdSlicingCriterion(sdg1.getNodeIdCount() - 1, "");
+        assert !sdg1.slice(sc).equals(sdg2.slice(sc));
+        assert sdg1.slice(sc).equals(sdg1.slice(sc));
+    }
+
+    @Test
+    public void graphIdsTest() {
+        String code = "class A { int f(int x) { int y = x + 1; return y; } }";
+        // The ids of a graph built on its own are dense, and don't depend on the graphs built before it
+        for (int i = 0; i < 2; i++) {
+            CFG cfg = new CFG();
+            cfg.build(StaticJavaParser.parse(code).findFirst(MethodDeclaration.class).orElseThrow());
+            assert cfg.vertexSet().stream().mapToLong(GraphNode::getId).sorted().boxed().collect(Collectors.toList())
+                    .equals(LongStream.range(0, cfg.vertexSet().size()).boxed().collect(Collectors.toList()));
+        }
+        // Nodes can only be created while a graph is built
+        try {
+            new GraphNode<>("", new EmptyStmt());
+            assert false : "A node was created outside a build";
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+}
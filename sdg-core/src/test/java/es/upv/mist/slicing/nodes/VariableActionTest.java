@@ -0,0 +1,39 @@
+package es.upv.mist.slicing.nodes;
+
+import com.github.javaparser.StaticJavaParser;
+import com.github.javaparser.ast.NodeList;
+import es.upv.mist.slicing.graphs.sdg.SDG;
+import es.upv.mist.slicing.utils.StaticTypeSolver;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class VariableActionTest {
+    static {
+        StaticTypeSolver.addTypeSolverJRE();
+        StaticJavaParser.getConfiguration().setAttributeComments(false);
+    }
+
+    @Test
+    public void symbolTableTest() {
+        String code = "class A { int f(int x) { int y = x + 1; return x + y; } }";
+        SDG sdg1 = new SDG(), sdg2 = new SDG();
+        sdg1.build(new NodeList<>(StaticJavaParser.parse(code)));
+        sdg2.build(new NodeList<>(StaticJavaParser.parse(code)));
+        // The actions of a graph share its symbol table, and are never equal to those of other graphs
+        List<VariableAction> usages1 = findUsages(sdg1, "x"), usages2 = findUsages(sdg2, "x");
+        assert usages1.size() >= 2 && usages1.get(0).getSymbolTable() == usages1.get(1).getSymbolTable();
+        assert usages1.get(0).matches(usages1.get(1)) && usages1.get(0).equals(usages1.get(1));
+        assert usages1.get(0).getSymbolTable() != usages2.get(0).getSymbolTable();
+        assert !usages1.get(0).equals(usages2.get(0));
+    }
+
+    private static List<VariableAction> findUsages(SDG sdg, String variable) {
+        return sdg.vertexSet().stream().sorted()
+                .flatMap(node -> node.getVariableActions().stream())
+                .filter(action -> action.isUsage() && !(action instanceof VariableAction.Movable))
+                .filter(action -> action.getVariable().equals(variable))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,124 @@
+package es.upv.mist.slicing.utils;
+
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.NodeList;
+import es.upv.mist.slicing.graphs.sdg.SDG;
+import es.upv.mist.slicing.slicing.FileLineSlicingCriterion;
+import es.upv.mist.slicing.slicing.Slice;
+import es.upv.mist.slicing.slicing.SlicingCriterion;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+public class ProjectTypeSolverTest {
+    private static final String PROJECT_SRC = "project/src";
+    private static final String PROJECT_LIB = "project/lib";
+    private static final int THREADS = 4;
+
+    @Test
+    public void projectParallelParsingTest() throws Exception {
+        File sources = new File(Thread.currentThread().getContextClassLoader().getResource(PROJECT_SRC).getPath());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        ForkJoinPool pool = new ForkJoinPool(THREADS);
+        try (AnalysisContext context = new AnalysisContext()) {
+            ProjectTypeSolver project = new ProjectTypeSolver(context, List.of(sources));
+            context.addTypeSolverJRE();
+            context.addTypeSolver(project);
+            // Some files are requested by other threads while the pool parses all of them
+            List<File> files = List.of(new File(sources, "shapes/Shape.java"), new File(sources, "app/Main.java"));
+            List<Future<CompilationUnit>> requested = new LinkedList<>();
+            for (int i = 0; i < THREADS; i++) {
+                File file = files.get(i % files.size());
+                requested.add(executor.submit(() -> project.getCompilationUnit(file)));
+            }
+            NodeList<CompilationUnit> units = project.getAllCompilationUnits(pool);
+            // The units are sorted by package and name, and each file is only registered once
+            List<String> names = units.stream().map(cu -> cu.getStorage().get().getFileName()).collect(Collectors.toList());
+            assert names.equals(List.of("Main.java", "Circle.java", "Shape.java")) : "Unexpected units: " + names;
+            NodeList<CompilationUnit> again = project.getAllCompilationUnits();
+            for (int i = 0; i < units.size(); i++)
+                assert units.get(i) == again.get(i) : "The file " + names.get(i) + " was registered twice.";
+            for (Future<CompilationUnit> future : requested) {
+                CompilationUnit unit = future.get();
+                assert units.stream().anyMatch(cu -> cu == unit) : "A file was registered twice.";
+            }
+            // The units resolve their types and calls with the solver that parsed them
+            SDG sdg = new SDG();
+            sdg.build(units);
+            Slice slice = sdg.slice(new FileLineSlicingCriterion(new File(sources, "app/Main.java"), 10));
+            assert sdg.getContext() == context && slice.toAst().size() == units.size() : "The slice should reach the declarations of area() in every file.";
+        } finally {
+            executor.shutdown();
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void projectTypeSearchTest() throws Exception {
+        File sources = new File(Thread.currentThread().getContextClassLoader().getResource(PROJECT_LIB).getPath());
+        try (AnalysisContext context = new AnalysisContext()) {
+            List<String> parsed = Collections.synchronizedList(new LinkedList<>());
+            ProjectTypeSolver project = new ProjectTypeSolver(context, List.of(sources)) {
+                @Override
+                protected CompilationUnit parse(File file) throws FileNotFoundException {
+                    parsed.add(file.getName());
+                    return super.parse(file);
+                }
+            };
+            context.addTypeSolverJRE();
+            context.addTypeSolver(project);
+            // Square is declared in Figures.java, and the text of Broken.java mentions it, but can't be parsed
+            var square = project.tryToSolveType("geometry.Square");
+            assert square.isSolved() && square.getCorrespondingDeclaration().getQualifiedName().equals("geometry.Square");
+            assert parsed.equals(List.of("Broken.java", "Figures.java")) : "Unexpected parsed files: " + parsed;
+            var cell = project.tryToSolveType("geometry.Grid.Cell");
+            assert cell.isSolved() && cell.getCorrespondingDeclaration().getQualifiedName().equals("geometry.Grid.Cell");
+            assert parsed.equals(List.of("Broken.java", "Figures.java", "Grid.java")) : "Unexpected parsed files: " + parsed;
+            // Names that are not declared are not cached, but searching them again doesn't parse any file
+            for (int i = 0; i < 2; i++) {
+                assert !project.tryToSolveType("geometry.Missing").isSolved();
+                assert !project.tryToSolveType("Square").isSolved();
+            }
+            assert parsed.size() == 3 : "Unexpected parsed files: " + parsed;
+        }
+    }
+
+    @Test
+    public void partialProjectTest() throws Exception {
+        File sources = new File(Thread.currentThread().getContextClassLoader().getResource(PROJECT_LIB).getPath());
+        File plot = new File(sources, "geometry/Plot.java");
+        SlicingCriterion criterion = new FileLineSlicingCriterion(plot, 8);
+        Set<String> expected;
+        try (AnalysisContext context = new AnalysisContext()) {
+            ProjectTypeSolver project = new ProjectTypeSolver(context, List.of(sources));
+            context.addTypeSolverJRE();
+            context.addTypeSolver(project);
+            NodeList<CompilationUnit> units = new NodeList<>();
+            for (String name : List.of("Figures.java", "Grid.java", "Plot.java", "Unrelated.java"))
+                units.add(project.getCompilationUnit(new File(sources, "geometry/" + name)));
+            SDG sdg = new SDG();
+            sdg.build(units);
+            // The units of the slice are compared as a set, as their order depends on the order of the graph
+            expected = sdg.slice(criterion).toAst().stream().map(Object::toString).collect(Collectors.toSet());
+        }
+        try (AnalysisContext context = new AnalysisContext()) {
+            ProjectTypeSolver project = new ProjectTypeSolver(context, List.of(sources));
+            context.addTypeSolverJRE();
+            context.addTypeSolver(project);
+            // The closure contains the types that Plot uses, but not the unrelated or unparsable files
+            NodeList<CompilationUnit> units = project.getRequiredCompilationUnits(plot);
+            Set<String> names = units.stream().map(cu -> cu.getStorage().get().getFileName()).collect(Collectors.toSet());
+            assert names.equals(Set.of("Plot.java", "Figures.java", "Grid.java")) : "Unexpected closure: " + names;
+            SDG sdg = new SDG();
+            sdg.build(units);
+            assert sdg.slice(criterion).toAst().stream().map(Object::toString).collect(Collectors.toSet()).equals(expected) : "The slice of the closure differs from the full one.";
+        }
+    }
+}
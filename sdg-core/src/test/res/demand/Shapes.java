@@ -0,0 +1,63 @@
+abstract class Shape {
+    abstract int area();
+
+    int twice() {
+        return 2 * area();
+    }
+}
+
+class Square extends Shape {
+    int side;
+
+    Square(int side) {
+        this.side = side;
+    }
+
+    int area() {
+        return side * side;
+    }
+}
+
+class Rect extends Shape {
+    int w;
+    int h;
+
+    Rect(int w, int h) {
+        this.w = w;
+        this.h = h;
+    }
+
+    int area() {
+        int a = w * h;
+        return a;
+    }
+}
+
+class Unused {
+    int noise(int a) {
+        int b = a + 1;
+        return b;
+    }
+}
+
+class Shapes {
+    static int total(Shape[] shapes) {
+        int sum = 0;
+        for (Shape s : shapes)
+            sum += s.twice();
+        return sum;
+    }
+
+    static int scaled(Shape s, int k) {
+        int r = k * s.area();
+        return r;
+    }
+
+    public static void main(String[] args) {
+        Shape[] shapes = { new Square(2), new Rect(2, 3) };
+        int t = total(shapes);
+        int u = scaled(shapes[0], 3);
+        int v = t + u;
+        System.out.println(v);
+    }
+}
@@ -0,0 +1,7 @@
+package geometry;
+
+// The class Square is declared in Figures.java
+public class Broken {
+    void m( {
+    }
+}
@@ -0,0 +1,13 @@
+package geometry;
+
+class Square {
+    protected double side;
+
+    public Square(double side) {
+        this.side = side;
+    }
+
+    public double area() {
+        return side * side;
+    }
+}
@@ -0,0 +1,11 @@
+package geometry;
+
+public class Grid {
+    public static class Cell {
+        protected int row;
+
+        public int getRow() {
+            return row;
+        }
+    }
+}
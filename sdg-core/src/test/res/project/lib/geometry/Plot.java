@@ -0,0 +1,10 @@
+package geometry;
+
+public class Plot {
+    public static void main(String[] args) {
+        Square square = new Square(3);
+        Grid.Cell cell = new Grid.Cell();
+        double total = square.area() + cell.getRow();
+        System.out.println(total);
+    }
+}
@@ -0,0 +1,7 @@
+package geometry;
+
+public class Unrelated {
+    public int value() {
+        return 42;
+    }
+}
@@ -0,0 +1,12 @@
+package app;
+
+import shapes.Circle;
+import shapes.Shape;
+
+public class Main {
+    public static void main(String[] args) {
+        Shape shape = new Circle(2);
+        double area = shape.area();
+        System.out.println(area);
+    }
+}
@@ -0,0 +1,14 @@
+package shapes;
+
+public class Circle extends Shape {
+    protected double radius;
+
+    public Circle(double radius) {
+        this.radius = radius;
+    }
+
+    @Override
+    public double area() {
+        return 3.14 * radius * radius;
+    }
+}